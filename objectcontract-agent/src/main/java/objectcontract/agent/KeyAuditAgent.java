@@ -0,0 +1,205 @@
+package objectcontract.agent;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.instrument.Instrumentation;
+import java.lang.instrument.UnmodifiableClassException;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+
+/**
+ * Agent auditing keys inserted into <code>HashMap</code> and
+ * <code>ConcurrentHashMap</code> of running application.
+ *
+ * <p>Agent is configured by comma separated options:</p>
+ *
+ * <pre>
+ * java -javaagent:objectcontract-agent.jar=rate=0.001,report=keys.properties,interval=10000 ...
+ * </pre>
+ *
+ * <ul>
+ *   <li><code>rate</code> - fraction of inserted keys to sample, <code>0.001</code> by default.</li>
+ *   <li><code>report</code> - file to write the results to, <code>objectcontract-keys.properties</code> by default.</li>
+ *   <li><code>interval</code> - milliseconds between audits, <code>10000</code> by default.</li>
+ * </ul>
+ *
+ * <p>Keys are sampled by {@link KeyHook} appended to the bootstrap class path
+ * and audited by a background thread as well as on shutdown.</p>
+ *
+ * @author Oliver Gondža (ogondza@gmail.com)
+ * @see KeyAuditor
+ */
+public final class KeyAuditAgent {
+
+    private static final String HOOK = "objectcontract.agent.KeyHook";
+
+    private KeyAuditAgent() {}
+
+    public static void premain(final String args, final Instrumentation instrumentation) throws Exception {
+
+        start(args, instrumentation);
+    }
+
+    public static void agentmain(final String args, final Instrumentation instrumentation) throws Exception {
+
+        start(args, instrumentation);
+    }
+
+    private static void start(final String args, final Instrumentation instrumentation) throws Exception {
+
+        double rate = 0.001;
+        File report = new File("objectcontract-keys.properties");
+        long interval = 10000;
+
+        if (args != null && args.length() != 0) {
+
+            for (final String option: args.split(",")) {
+
+                final int separator = option.indexOf('=');
+                final String name = separator == -1 ? option : option.substring(0, separator);
+                final String value = separator == -1 ? "" : option.substring(separator + 1);
+
+                if ("rate".equals(name)) {
+
+                    rate = Double.parseDouble(value);
+                } else if ("report".equals(name)) {
+
+                    report = new File(value);
+                } else if ("interval".equals(name)) {
+
+                    interval = Long.parseLong(value);
+                } else {
+
+                    throw new IllegalStateException("Unknown agent option " + option);
+                }
+            }
+        }
+
+        if (rate < 0 || rate > 1) throw new IllegalStateException(
+                "Invalid sampling rate " + rate
+        );
+
+        if (interval < 1) throw new IllegalStateException(
+                "Argument interval has to be at least 1: " + interval
+        );
+
+        if (!instrumentation.isRetransformClassesSupported()) throw new IllegalStateException(
+                "Retransformation is not supported"
+        );
+
+        appendHook(instrumentation);
+
+        final Class<?> hook = Class.forName(HOOK);
+        if (hook.getClassLoader() != null) throw new IllegalStateException(
+                HOOK + " is not loaded by bootstrap class loader"
+        );
+
+        allowReading(instrumentation, HashMap.class, hook);
+
+        final KeyAuditor auditor = new KeyAuditor(report, interval);
+        final Thread thread = new Thread(auditor, "objectcontract key auditor");
+        thread.setDaemon(true);
+
+        final int sampled = (int) Math.round(rate * KeyHook.RATE_SCALE);
+        KeyHook.start(sampled, thread);
+
+        instrumentation.addTransformer(new MapTransformer(), true);
+        retransformMaps(instrumentation);
+
+        thread.start();
+        Runtime.getRuntime().addShutdownHook(new Thread("objectcontract key auditor shutdown") {
+            @Override
+            public void run() {
+
+                auditor.audit();
+            }
+        });
+    }
+
+    /**
+     * Make the hook available to platform classes.
+     */
+    private static void appendHook(final Instrumentation instrumentation) throws IOException {
+
+        final File jar = File.createTempFile("objectcontract", "-hook.jar");
+        jar.deleteOnExit();
+
+        final String entry = HOOK.replace('.', '/') + ".class";
+        final InputStream in = KeyAuditAgent.class.getClassLoader().getResourceAsStream(entry);
+        if (in == null) throw new IllegalStateException("Unable to find " + entry);
+
+        try {
+
+            final JarOutputStream out = new JarOutputStream(new FileOutputStream(jar));
+            try {
+
+                out.putNextEntry(new JarEntry(entry));
+
+                final byte[] buffer = new byte[ 4096 ];
+                for (int read = in.read(buffer); read != -1; read = in.read(buffer)) {
+
+                    out.write(buffer, 0, read);
+                }
+
+                out.closeEntry();
+            } finally {
+
+                out.close();
+            }
+        } finally {
+
+            in.close();
+        }
+
+        instrumentation.appendToBootstrapClassLoaderSearch(new JarFile(jar));
+    }
+
+    /**
+     * Let the module of <code>from</code> read the module of <code>to</code>.
+     * There are no modules to redefine before Java 9.
+     */
+    private static void allowReading(
+            final Instrumentation instrumentation, final Class<?> from, final Class<?> to
+    ) throws Exception {
+
+        final Method getModule;
+        try {
+
+            getModule = Class.class.getMethod("getModule");
+        } catch (NoSuchMethodException ex) {
+
+            return;
+        }
+
+        final Method redefineModule = Instrumentation.class.getMethod(
+                "redefineModule",
+                getModule.getReturnType(), Set.class, Map.class, Map.class, Set.class, Map.class
+        );
+
+        redefineModule.invoke(
+                instrumentation,
+                getModule.invoke(from),
+                Collections.singleton(getModule.invoke(to)),
+                Collections.emptyMap(),
+                Collections.emptyMap(),
+                Collections.emptySet(),
+                Collections.emptyMap()
+        );
+    }
+
+    private static void retransformMaps(
+            final Instrumentation instrumentation
+    ) throws UnmodifiableClassException {
+
+        instrumentation.retransformClasses(HashMap.class, ConcurrentHashMap.class);
+    }
+}
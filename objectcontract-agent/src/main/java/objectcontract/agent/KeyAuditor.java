@@ -0,0 +1,231 @@
+package objectcontract.agent;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+
+/**
+ * Periodic audit of keys sampled by {@link KeyHook}.
+ *
+ * <p>Every sampled key is verified to produce the same hashCode it was
+ * inserted with, to be equal to itself and not to be equal to null. Keys
+ * are then sorted to buckets by their hashCode. Keys of the same bucket are
+ * compared pairwise for symmetry of equals, unequal pairs are counted as
+ * collisions, not reported as violations. Keys of different buckets are
+ * required not to be equal, only {@value #CROSS_BUCKET_PAIRS} randomly
+ * chosen pairs of them are compared per audit so the cost of the audit does
+ * not grow with the square of the sample. Pairs within buckets are capped
+ * at {@value #MAX_BUCKET_PAIRS} per audit, the rest is counted as skipped.
+ * Messages are built only for violations. Totals and first violations are
+ * written to the report file after every audit.</p>
+ *
+ * @author Oliver Gondža (ogondza@gmail.com)
+ */
+final class KeyAuditor implements Runnable {
+
+    private static final int MAX_REPORTED = 100;
+
+    static final int MAX_BUCKET_PAIRS = 1 << 16;
+    static final int CROSS_BUCKET_PAIRS = 1 << 12;
+
+    private final File report;
+    private final long interval;
+
+    private final Object[] keys = new Object[ KeyHook.CAPACITY ];
+    private final int[] hashCodes = new int[ KeyHook.CAPACITY ];
+    // current hashCode in upper half, index of the key in lower half
+    private final long[] buckets = new long[ KeyHook.CAPACITY ];
+    private final Random random = new Random();
+
+    private long sampled = 0;
+    private long checks = 0;
+    private long violations = 0;
+    private long collisions = 0;
+    private long hashChanges = 0;
+    private long skippedPairs = 0;
+    private final List<String> messages = new ArrayList<String>();
+
+    KeyAuditor(final File report, final long interval) {
+
+        this.report = report;
+        this.interval = interval;
+    }
+
+    public void run() {
+
+        try {
+
+            while (!Thread.currentThread().isInterrupted()) {
+
+                Thread.sleep(interval);
+                audit();
+            }
+        } catch (InterruptedException ex) {
+
+            // Stop auditing
+        }
+    }
+
+    synchronized void audit() {
+
+        final int count = KeyHook.drain(keys, hashCodes);
+        sampled += count;
+
+        try {
+
+            audit(count);
+        } catch (RuntimeException ex) {
+
+            violated("Audit of sampled keys failed: " + ex);
+        } finally {
+
+            for (int i = 0; i < count; i++) {
+
+                keys[ i ] = null;
+            }
+        }
+
+        write();
+    }
+
+    private void audit(final int count) {
+
+        for (int i = 0; i < count; i++) {
+
+            final Object key = keys[ i ];
+
+            final int hashCode = key.hashCode();
+            if (hashCode != hashCodes[ i ]) {
+
+                hashChanges++;
+                violated(String.format(
+                        "Failed asserting that %s keeps hashCode it was inserted with (%s != %s).",
+                        key.getClass().getName(), hashCodes[ i ], hashCode
+                ));
+            }
+
+            checks += 2;
+            if (!key.equals(key)) violated("equals is reflexive", key, key);
+            if (key.equals(null)) violated("equals fails for null", key, key);
+
+            buckets[ i ] = (long) hashCode << 32 | i;
+        }
+
+        Arrays.sort(buckets, 0, count);
+
+        int pairs = 0;
+        for (int start = 0, end; start < count; start = end) {
+
+            end = start + 1;
+            while (end < count && hash(end) == hash(start)) end++;
+
+            for (int i = start; i < end; i++) {
+
+                for (int j = i + 1; j < end; j++) {
+
+                    if (pairs++ >= MAX_BUCKET_PAIRS) {
+
+                        skippedPairs++;
+                        continue;
+                    }
+
+                    compareInBucket(keys[ index(i) ], keys[ index(j) ]);
+                }
+            }
+        }
+
+        if (count < 2 || hash(0) == hash(count - 1)) return;
+
+        for (int pair = 0; pair < CROSS_BUCKET_PAIRS; pair++) {
+
+            final int i = random.nextInt(count);
+            final int j = random.nextInt(count);
+            if (hash(i) == hash(j)) continue;
+
+            final Object lhs = keys[ index(i) ];
+            final Object rhs = keys[ index(j) ];
+
+            checks++;
+            if (lhs.equals(rhs)) violated("equal keys have the same hashCode", lhs, rhs);
+        }
+    }
+
+    private void compareInBucket(final Object lhs, final Object rhs) {
+
+        // The same key inserted repeatedly
+        if (lhs == rhs) return;
+
+        checks += 2;
+        final boolean equals = lhs.equals(rhs);
+        if (equals != rhs.equals(lhs)) {
+
+            violated("equals is symmetric", lhs, rhs);
+        } else if (!equals) {
+
+            collisions++;
+        }
+    }
+
+    private int hash(final int bucketIndex) {
+
+        return (int) (buckets[ bucketIndex ] >> 32);
+    }
+
+    private int index(final int bucketIndex) {
+
+        return (int) buckets[ bucketIndex ];
+    }
+
+    private void violated(final String invariant, final Object lhs, final Object rhs) {
+
+        violated(lhs == rhs
+                ? String.format("Failed asserting that %s (%s).", invariant, lhs.getClass().getName())
+                : String.format(
+                        "Failed asserting that %s (%s, %s).",
+                        invariant, lhs.getClass().getName(), rhs.getClass().getName()
+                )
+        );
+    }
+
+    private void violated(final String message) {
+
+        if (violations++ < MAX_REPORTED) messages.add(message);
+    }
+
+    private void write() {
+
+        final Properties properties = new Properties();
+        properties.setProperty("sampled", String.valueOf(sampled));
+        properties.setProperty("checks", String.valueOf(checks));
+        properties.setProperty("violations", String.valueOf(violations));
+        properties.setProperty("collisions", String.valueOf(collisions));
+        properties.setProperty("hashChanges", String.valueOf(hashChanges));
+        properties.setProperty("skippedPairs", String.valueOf(skippedPairs));
+
+        for (int i = 0; i < messages.size(); i++) {
+
+            properties.setProperty("violation." + i, messages.get(i));
+        }
+
+        try {
+
+            final OutputStream out = new FileOutputStream(report);
+            try {
+
+                properties.store(out, "objectcontract key audit");
+            } finally {
+
+                out.close();
+            }
+        } catch (IOException ex) {
+
+            System.err.println("Unable to write key audit report " + report + ": " + ex);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package objectcontract.agent;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Sampler of keys inserted into instrumented maps.
+ *
+ * <p>Class is loaded by the bootstrap class loader so the instrumented
+ * <code>java.util</code> classes can call it. It can refer to the platform
+ * classes only. Sampled keys are kept in a fixed size ring together with
+ * their hashCode at the time of insertion until they are drained by
+ * {@link KeyAuditor}. Samples are overwritten when the ring is full.</p>
+ *
+ * @author Oliver Gondža (ogondza@gmail.com)
+ */
+public final class KeyHook {
+
+    /**
+     * Sampling rate corresponding to every key being sampled.
+     */
+    public static final int RATE_SCALE = 1 << 20;
+
+    static final int CAPACITY = 1024;
+
+    private static volatile int rate = 0;
+    private static volatile Thread auditor = null;
+
+    private static final AtomicReferenceArray<Object[]> samples = new AtomicReferenceArray<Object[]>(CAPACITY);
+    private static final AtomicInteger next = new AtomicInteger();
+    private static final ThreadLocal<Boolean> sampling = new ThreadLocal<Boolean>();
+
+    private KeyHook() {}
+
+    /**
+     * Called by instrumented maps for every inserted key.
+     *
+     * @param key Inserted key
+     */
+    public static void sample(final Object key) {
+
+        final int currentRate = rate;
+        if (currentRate == 0 || key == null) return;
+        if (currentRate < RATE_SCALE && ThreadLocalRandom.current().nextInt(RATE_SCALE) >= currentRate) return;
+        if (Thread.currentThread() == auditor || sampling.get() != null) return;
+
+        sampling.set(Boolean.TRUE);
+        try {
+
+            final int slot = (next.getAndIncrement() & Integer.MAX_VALUE) % CAPACITY;
+            samples.set(slot, new Object[] { key, Integer.valueOf(key.hashCode()) });
+        } catch (RuntimeException ex) {
+
+            // Failing hashCode is reported once the map calls it
+        } finally {
+
+            sampling.remove();
+        }
+    }
+
+    /**
+     * Start sampling.
+     *
+     * @param rate Number of keys out of {@link #RATE_SCALE} to sample
+     * @param auditor Thread draining the samples. Its own keys are not sampled.
+     */
+    public static void start(final int rate, final Thread auditor) {
+
+        KeyHook.auditor = auditor;
+        KeyHook.rate = rate;
+    }
+
+    /**
+     * Move sampled keys and their hash codes to provided arrays.
+     *
+     * @return Number of drained samples
+     */
+    public static int drain(final Object[] keys, final int[] hashCodes) {
+
+        int count = 0;
+        for (int slot = 0; slot < CAPACITY && count < keys.length; slot++) {
+
+            final Object[] sample = samples.getAndSet(slot, null);
+            if (sample == null) continue;
+
+            keys[ count ] = sample[ 0 ];
+            hashCodes[ count ] = (Integer) sample[ 1 ];
+            count++;
+        }
+
+        return count;
+    }
+}
@@ -0,0 +1,118 @@
+package objectcontract.agent;
+
+import java.lang.instrument.ClassFileTransformer;
+import java.security.ProtectionDomain;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+/**
+ * Transformer passing keys of <code>put</code>, <code>putIfAbsent</code>,
+ * <code>computeIfAbsent</code>, <code>compute</code> and <code>merge</code>
+ * of hashed maps to {@link KeyHook}.
+ *
+ * <p>Keys are sampled when the method is called, whether it inserts the key
+ * or not. Bulk insertion by <code>putAll</code>, copy constructors and
+ * deserialization goes through internal methods of the maps and is not
+ * sampled.</p>
+ *
+ * @author Oliver Gondža (ogondza@gmail.com)
+ */
+final class MapTransformer implements ClassFileTransformer {
+
+    private static final String[] MAPS = {
+            "java/util/HashMap",
+            "java/util/concurrent/ConcurrentHashMap"
+    };
+
+    // Pairs of name and descriptor of methods taking key as the first argument
+    private static final String[][] INSERTIONS = {
+            { "put", "(Ljava/lang/Object;Ljava/lang/Object;)Ljava/lang/Object;" },
+            { "putIfAbsent", "(Ljava/lang/Object;Ljava/lang/Object;)Ljava/lang/Object;" },
+            { "computeIfAbsent", "(Ljava/lang/Object;Ljava/util/function/Function;)Ljava/lang/Object;" },
+            { "compute", "(Ljava/lang/Object;Ljava/util/function/BiFunction;)Ljava/lang/Object;" },
+            { "merge", "(Ljava/lang/Object;Ljava/lang/Object;Ljava/util/function/BiFunction;)Ljava/lang/Object;" }
+    };
+
+    // Do not load the hook by agent class loader
+    private static final String HOOK = "objectcontract/agent/KeyHook";
+
+    public byte[] transform(
+            final ClassLoader loader,
+            final String className,
+            final Class<?> classBeingRedefined,
+            final ProtectionDomain protectionDomain,
+            final byte[] classfileBuffer
+    ) {
+
+        if (!isMap(className)) return null;
+
+        try {
+
+            final ClassReader reader = new ClassReader(classfileBuffer);
+            final ClassWriter writer = new ClassWriter(reader, ClassWriter.COMPUTE_MAXS);
+            reader.accept(new MapVisitor(writer), 0);
+            return writer.toByteArray();
+        } catch (RuntimeException ex) {
+
+            // Leave the class intact
+            return null;
+        }
+    }
+
+    private boolean isMap(final String className) {
+
+        for (final String map: MAPS) {
+
+            if (map.equals(className)) return true;
+        }
+
+        return false;
+    }
+
+    private static final class MapVisitor extends ClassVisitor {
+
+        private MapVisitor(final ClassVisitor visitor) {
+
+            super(Opcodes.ASM9, visitor);
+        }
+
+        @Override
+        public MethodVisitor visitMethod(
+                final int access,
+                final String name,
+                final String descriptor,
+                final String signature,
+                final String[] exceptions
+        ) {
+
+            final MethodVisitor visitor = super.visitMethod(access, name, descriptor, signature, exceptions);
+
+            if ((access & Opcodes.ACC_STATIC) != 0 || !isInsertion(name, descriptor)) return visitor;
+
+            return new MethodVisitor(Opcodes.ASM9, visitor) {
+
+                @Override
+                public void visitCode() {
+
+                    super.visitCode();
+                    super.visitVarInsn(Opcodes.ALOAD, 1);
+                    super.visitMethodInsn(Opcodes.INVOKESTATIC, HOOK, "sample", "(Ljava/lang/Object;)V", false);
+                }
+            };
+        }
+
+        private boolean isInsertion(final String name, final String descriptor) {
+
+            for (final String[] insertion: INSERTIONS) {
+
+                if (insertion[ 0 ].equals(name) && insertion[ 1 ].equals(descriptor)) return true;
+            }
+
+            return false;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package objectcontract.agent;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Application inserting broken keys into hashed maps.
+ */
+public class DemoApplication {
+
+    public static void main(final String[] args) {
+
+        final Map<Object, Object> map = new HashMap<Object, Object>();
+        final Map<Object, Object> concurrentMap = new ConcurrentHashMap<Object, Object>();
+
+        final MutableKey mutable = new MutableKey(1);
+        map.put(mutable, "mutable");
+        mutable.value = 2;
+
+        concurrentMap.put(new NotReflexiveKey(), "not reflexive");
+
+        final MutableKey computed = new MutableKey(3);
+        map.computeIfAbsent(computed, new Function<Object, Object>() {
+            public Object apply(final Object key) {
+
+                return "computed";
+            }
+        });
+        computed.value = 4;
+
+        final MutableKey merged = new MutableKey(5);
+        concurrentMap.merge(merged, "merged", new BiFunction<Object, Object, Object>() {
+            public Object apply(final Object oldValue, final Object value) {
+
+                return value;
+            }
+        });
+        merged.value = 6;
+
+        // "Aa".hashCode() == "BB".hashCode()
+        map.put(new CollidingKey("Aa"), "Aa");
+        map.put(new CollidingKey("BB"), "BB");
+    }
+
+    private static final class MutableKey {
+
+        private int value;
+
+        private MutableKey(final int value) {
+
+            this.value = value;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+
+            return o instanceof MutableKey && ((MutableKey) o).value == value;
+        }
+
+        @Override
+        public int hashCode() {
+
+            return value;
+        }
+    }
+
+    private static final class NotReflexiveKey {
+
+        @Override
+        public boolean equals(final Object o) {
+
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+
+            return 42;
+        }
+    }
+
+    private static final class CollidingKey {
+
+        private final String value;
+
+        private CollidingKey(final String value) {
+
+            this.value = value;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+
+            return o instanceof CollidingKey && ((CollidingKey) o).value.equals(value);
+        }
+
+        @Override
+        public int hashCode() {
+
+            return value.hashCode();
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package objectcontract.agent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.jar.Attributes;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class KeyAuditAgentTest {
+
+    private File dir;
+
+    @Before
+    public void createDirectory() throws IOException {
+
+        dir = File.createTempFile("objectcontract", "agent");
+        dir.delete();
+        dir.mkdir();
+    }
+
+    @After
+    public void deleteDirectory() {
+
+        for (final File file: dir.listFiles()) {
+
+            file.delete();
+        }
+
+        dir.delete();
+    }
+
+    @Test
+    public void auditDemoApplication() throws Exception {
+
+        final Properties report = runDemo("rate=1.0");
+
+        assertTrue(report.toString(), Long.parseLong(report.getProperty("sampled")) > 0);
+        assertTrue(report.toString(), Long.parseLong(report.getProperty("checks")) > 0);
+        assertTrue(report.toString(), Long.parseLong(report.getProperty("collisions")) > 0);
+        assertEquals(report.toString(), "3", report.getProperty("hashChanges"));
+        assertEquals(report.toString(), "0", report.getProperty("skippedPairs"));
+
+        final List<String> violations = getViolations(report);
+        // keys inserted by put, computeIfAbsent and merge
+        for (final String change: new String[] { "1 != 2", "3 != 4", "5 != 6" }) {
+
+            assertTrue(violations.toString(), violations.contains(
+                    "Failed asserting that objectcontract.agent.DemoApplication$MutableKey"
+                    + " keeps hashCode it was inserted with (" + change + ")."
+            ));
+        }
+
+        assertTrue(violations.toString(), violations.contains(
+                "Failed asserting that equals is reflexive (objectcontract.agent.DemoApplication$NotReflexiveKey)."
+        ));
+    }
+
+    @Test
+    public void sampleNothing() throws Exception {
+
+        final Properties report = runDemo("rate=0");
+
+        assertEquals("0", report.getProperty("sampled"));
+        assertEquals("0", report.getProperty("violations"));
+    }
+
+    @Test
+    public void rejectNonPositiveInterval() throws Exception {
+
+        for (final String interval: new String[] { "0", "-1" }) {
+
+            try {
+
+                KeyAuditAgent.premain("interval=" + interval, null);
+                fail("Interval " + interval + " accepted");
+            } catch (IllegalStateException ex) {
+
+                assertEquals("Argument interval has to be at least 1: " + interval, ex.getMessage());
+            }
+        }
+    }
+
+    private Properties runDemo(final String options) throws Exception {
+
+        final File report = new File(dir, "report.properties");
+
+        final Process process = new ProcessBuilder(
+                System.getProperty("java.home") + File.separator + "bin" + File.separator + "java",
+                "-javaagent:" + createAgentJar() + "=" + options + ",report=" + report,
+                "-cp", System.getProperty("java.class.path"),
+                DemoApplication.class.getName()
+        ).redirectErrorStream(true).redirectOutput(ProcessBuilder.Redirect.INHERIT).start();
+
+        assertEquals(0, process.waitFor());
+
+        final Properties properties = new Properties();
+        final InputStream in = new FileInputStream(report);
+        try {
+
+            properties.load(in);
+        } finally {
+
+            in.close();
+        }
+
+        return properties;
+    }
+
+    /**
+     * Agent classes are loaded from the classpath of the demo application.
+     */
+    private File createAgentJar() throws IOException {
+
+        final Manifest manifest = new Manifest();
+        final Attributes attributes = manifest.getMainAttributes();
+        attributes.put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        attributes.putValue("Premain-Class", KeyAuditAgent.class.getName());
+        attributes.putValue("Can-Retransform-Classes", "true");
+
+        final File jar = new File(dir, "agent.jar");
+        new JarOutputStream(new FileOutputStream(jar), manifest).close();
+        return jar;
+    }
+
+    private List<String> getViolations(final Properties report) {
+
+        final List<String> violations = new ArrayList<String>();
+        for (int i = 0; report.getProperty("violation." + i) != null; i++) {
+
+            violations.add(report.getProperty("violation." + i));
+        }
+
+        return violations;
+    }
+}
@@ -0,0 +1,53 @@
+package objectcontract;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Groups held in memory.
+ *
+ * @author Oliver Gondža (ogondza@gmail.com)
+ */
+final class ArrayGroupSource implements GroupSource {
+
+    private final Object[][] groups;
+
+    ArrayGroupSource(final List<List<Object>> groups) {
+
+        this.groups = new Object[ groups.size() ][];
+
+        for ( int i = 0; i < groups.size (); i++ ) {
+
+            this.groups[ i ] = groups.get(i).toArray();
+        }
+    }
+
+    public int getGroupCount() {
+
+        return groups.length;
+    }
+
+    public int getGroupSize(final int groupIndex) {
+
+        return groups[ groupIndex ].length;
+    }
+
+    public Object[] getGroup(final int groupIndex) {
+
+        return groups[ groupIndex ];
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+
+        if (o == null || o.getClass() != this.getClass()) return false;
+
+        return Arrays.deepEquals(groups, ((ArrayGroupSource) o).groups);
+    }
+
+    @Override
+    public int hashCode() {
+
+        return Arrays.deepHashCode(groups);
+    }
+}
@@ -0,0 +1,280 @@
+package objectcontract;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Generator of JMH benchmarks for classes of fixture groups.
+ *
+ * <p>For every concrete class of the instances created by
+ * {@link GroupFactory}, the generator writes source of a JMH benchmark
+ * measuring <code>equals</code> of identical reference, equal pair and
+ * unequal pair, <code>hashCode</code> and <code>HashMap</code> get and put
+ * replacing the value of a present key.
+ * Benchmarks recreate the groups using the factory and pick the instances
+ * by coordinates found when the benchmark was generated. Benchmarks of
+ * equal or unequal pair are omitted when the groups do not contain such
+ * pair of instances of the class.</p>
+ *
+ * <p>Generated sources are placed into the package of the factory and
+ * require <code>org.openjdk.jmh:jmh-core</code> and the annotation
+ * processor <code>org.openjdk.jmh:jmh-generator-annprocess</code> to be
+ * compiled.</p>
+ *
+ * @author Oliver Gondža (ogondza@gmail.com)
+ */
+public final class BenchmarkGenerator {
+
+    private static final String SUFFIX = "Benchmark";
+
+    private final Class<? extends GroupFactory> factory;
+
+    /**
+     * @param factory Factory of fixture groups. Generated benchmarks
+     * instantiate it so it can not be local, anonymous nor inner class.
+     */
+    public BenchmarkGenerator(final Class<? extends GroupFactory> factory) {
+
+        if (factory == null) throw new NullPointerException("No factory provided");
+
+        final boolean instantiable = factory.getCanonicalName() != null
+                && (!factory.isMemberClass() || Modifier.isStatic(factory.getModifiers()))
+        ;
+
+        if (!instantiable) throw new IllegalStateException(
+                "Factory has to be top level or static nested class: " + factory.getName()
+        );
+
+        this.factory = factory;
+    }
+
+    /**
+     * Write benchmark sources.
+     *
+     * @param sourceDirectory Root of the source tree to write the sources to.
+     * @return Written source files
+     */
+    public List<File> generate(final File sourceDirectory) {
+
+        final Object[][] groups = createGroups();
+
+        final Map<Class<?>, List<int[]>> coordinates = new LinkedHashMap<Class<?>, List<int[]>>();
+        for (int groupIndex = 0; groupIndex < groups.length; groupIndex++) {
+
+            for (int instanceIndex = 0; instanceIndex < groups[ groupIndex ].length; instanceIndex++) {
+
+                final Class<?> type = groups[ groupIndex ][ instanceIndex ].getClass();
+                List<int[]> instances = coordinates.get(type);
+                if (instances == null) {
+
+                    instances = new ArrayList<int[]>();
+                    coordinates.put(type, instances);
+                }
+
+                instances.add(new int[] { groupIndex, instanceIndex });
+            }
+        }
+
+        final Package pkg = factory.getPackage();
+        final String packageName = pkg == null ? "" : pkg.getName();
+        final File directory = new File(sourceDirectory, packageName.replace('.', File.separatorChar));
+        directory.mkdirs();
+
+        final Set<String> names = new HashSet<String>();
+        final List<File> sources = new ArrayList<File>();
+        for (final Map.Entry<Class<?>, List<int[]>> entry: coordinates.entrySet()) {
+
+            final String name = getName(entry.getKey(), names);
+            final File source = new File(directory, name + ".java");
+
+            write(source, getSource(packageName, name, entry.getKey(), entry.getValue()));
+            sources.add(source);
+        }
+
+        return sources;
+    }
+
+    private Object[][] createGroups() {
+
+        try {
+
+            return factory.getDeclaredConstructor().newInstance().getGroups();
+        } catch (NoSuchMethodException ex) {
+
+            throw new IllegalStateException("Unable to instantiate " + factory.getName(), ex);
+        } catch (InstantiationException ex) {
+
+            throw new IllegalStateException("Unable to instantiate " + factory.getName(), ex);
+        } catch (IllegalAccessException ex) {
+
+            throw new IllegalStateException("Unable to instantiate " + factory.getName(), ex);
+        } catch (InvocationTargetException ex) {
+
+            throw new IllegalStateException("Unable to instantiate " + factory.getName(), ex.getCause());
+        }
+    }
+
+    private String getName(final Class<?> type, final Set<String> names) {
+
+        final String simpleName = type.getSimpleName().length() == 0
+                ? "Anonymous"
+                : type.getSimpleName()
+        ;
+
+        String name = simpleName + SUFFIX;
+        for (int i = 2; !names.add(name); i++) {
+
+            name = simpleName + i + SUFFIX;
+        }
+
+        return name;
+    }
+
+    private String getSource(
+            final String packageName,
+            final String name,
+            final Class<?> type,
+            final List<int[]> instances
+    ) {
+
+        final int[] instance = instances.get(0);
+        final int[] equal = findEqual(instances);
+        final int[] unequal = findUnequal(instances);
+
+        final StringBuilder source = new StringBuilder();
+
+        if (packageName.length() != 0) {
+
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+
+        source.append("import java.util.HashMap;\n");
+        source.append("import java.util.Map;\n");
+        source.append("import java.util.concurrent.TimeUnit;\n\n");
+        source.append("import org.openjdk.jmh.annotations.Benchmark;\n");
+        source.append("import org.openjdk.jmh.annotations.BenchmarkMode;\n");
+        source.append("import org.openjdk.jmh.annotations.Mode;\n");
+        source.append("import org.openjdk.jmh.annotations.OutputTimeUnit;\n");
+        source.append("import org.openjdk.jmh.annotations.Scope;\n");
+        source.append("import org.openjdk.jmh.annotations.Setup;\n");
+        source.append("import org.openjdk.jmh.annotations.State;\n\n");
+        source.append("/**\n");
+        source.append(" * Benchmark of ").append(type.getName()).append(".\n");
+        source.append(" *\n");
+        source.append(" * <p>Generated by ").append(getClass().getName())
+                .append(" from ").append(factory.getName()).append(".</p>\n")
+        ;
+        source.append(" */\n");
+        source.append("@State(Scope.Benchmark)\n");
+        source.append("@BenchmarkMode(Mode.AverageTime)\n");
+        source.append("@OutputTimeUnit(TimeUnit.NANOSECONDS)\n");
+        source.append("public class ").append(name).append(" {\n\n");
+        source.append("    private Object instance;\n");
+        if (equal != null) source.append("    private Object equal;\n");
+        if (unequal != null) source.append("    private Object unequal;\n");
+        source.append("    private Object probe;\n");
+        source.append("    private Map<Object, Object> map;\n\n");
+
+        source.append("    @Setup\n");
+        source.append("    public void setup() {\n\n");
+        source.append("        final Object[][] groups = new ")
+                .append(factory.getCanonicalName()).append("().getGroups();\n\n")
+        ;
+        source.append("        instance = ").append(reference(instance)).append(";\n");
+        if (equal != null) source.append("        equal = ").append(reference(equal)).append(";\n");
+        if (unequal != null) source.append("        unequal = ").append(reference(unequal)).append(";\n");
+        source.append("        probe = ").append(reference(equal == null ? instance : equal)).append(";\n\n");
+        source.append("        map = new HashMap<Object, Object>();\n");
+
+        final Set<Integer> mappedGroups = new HashSet<Integer>();
+        for (final int[] key: instances) {
+
+            if (!mappedGroups.add(key[ 0 ])) continue;
+
+            source.append("        map.put(").append(reference(key)).append(", Boolean.TRUE);\n");
+        }
+
+        source.append("    }\n");
+
+        appendBenchmark(source, "equalsIdentical", "boolean", "instance.equals(instance)");
+        if (equal != null) appendBenchmark(source, "equalsEqual", "boolean", "instance.equals(equal)");
+        if (unequal != null) appendBenchmark(source, "equalsUnequal", "boolean", "instance.equals(unequal)");
+        appendBenchmark(source, "hashCode", "int", "instance.hashCode()");
+        appendBenchmark(source, "hashMapGet", "Object", "map.get(probe)");
+        appendBenchmark(source, "hashMapReplace", "Object", "map.put(probe, Boolean.TRUE)");
+
+        source.append("}\n");
+
+        return source.toString();
+    }
+
+    private int[] findEqual(final List<int[]> instances) {
+
+        final int[] instance = instances.get(0);
+        for (final int[] candidate: instances) {
+
+            if (candidate[ 0 ] == instance[ 0 ] && candidate[ 1 ] != instance[ 1 ]) return candidate;
+        }
+
+        return null;
+    }
+
+    private int[] findUnequal(final List<int[]> instances) {
+
+        final int[] instance = instances.get(0);
+        for (final int[] candidate: instances) {
+
+            if (candidate[ 0 ] != instance[ 0 ]) return candidate;
+        }
+
+        return null;
+    }
+
+    private String reference(final int[] coordinates) {
+
+        return String.format("groups[%s][%s]", coordinates[ 0 ], coordinates[ 1 ]);
+    }
+
+    private void appendBenchmark(
+            final StringBuilder source,
+            final String name,
+            final String type,
+            final String expression
+    ) {
+
+        source.append("\n");
+        source.append("    @Benchmark\n");
+        source.append("    public ").append(type).append(' ').append(name).append("() {\n\n");
+        source.append("        return ").append(expression).append(";\n");
+        source.append("    }\n");
+    }
+
+    private void write(final File file, final String source) {
+
+        try {
+
+            final Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+            try {
+
+                writer.write(source);
+            } finally {
+
+                writer.close();
+            }
+        } catch (IOException ex) {
+
+            throw new IllegalStateException("Unable to write " + file, ex);
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package objectcontract;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Copies of {@link SpecializedChecks} for every combination of concrete
+ * classes.
+ *
+ * <p>When a single loop compares instances of many classes, its
+ * <code>equals</code> and <code>hashCode</code> call sites become megamorphic
+ * and the JIT stops inlining them. Every copy is defined by its own class
+ * loader so it collects its own type profile and its call sites stay
+ * monomorphic. Consecutive rhs instances of the same class are passed to the
+ * copy at once so the copies are dispatched to once per run of a class, not
+ * once per check.</p>
+ *
+ * @author Oliver Gondža (ogondza@gmail.com)
+ */
+final class CallSiteSpecializer {
+
+    private static final byte[] BYTECODE = readBytecode();
+
+    private final Map<Class<?>, Map<Class<?>, Checks>> copies =
+            new HashMap<Class<?>, Map<Class<?>, Checks>>()
+    ;
+
+    /**
+     * @return true if the instance is equal to itself and not equal to null
+     */
+    boolean isSound(final Object instance) {
+
+        return getChecks(instance.getClass(), instance.getClass()).isSound(instance);
+    }
+
+    /**
+     * @return Index of the first instance from <code>from</code> on that
+     * the lhs is not equal to or does not share hashCode with, excluding
+     * <code>skip</code>. Group length if there is none.
+     */
+    int findViolationWithinGroup(
+            final Object lhs, final Object[] group, final int from, final int skip
+    ) {
+
+        int rhsIndex = from;
+        while (rhsIndex < group.length) {
+
+            if (rhsIndex == skip) {
+
+                rhsIndex++;
+                continue;
+            }
+
+            final int end = runEnd(group, rhsIndex, skip);
+            rhsIndex = getChecks(lhs.getClass(), group[ rhsIndex ].getClass())
+                    .findViolationWithinGroup(lhs, group, rhsIndex, end)
+            ;
+
+            if (rhsIndex != end) return rhsIndex;
+        }
+
+        return group.length;
+    }
+
+    /**
+     * @return Index of the first instance from <code>from</code> on that
+     * the lhs is equal to or shares hashCode with unless hash collisions are
+     * allowed. Group length if there is none.
+     */
+    int findViolationBetweenGroups(
+            final Object lhs,
+            final Object[] group,
+            final int from,
+            final boolean allowHashCodeCollision
+    ) {
+
+        int rhsIndex = from;
+        while (rhsIndex < group.length) {
+
+            final int end = runEnd(group, rhsIndex, -1);
+            rhsIndex = getChecks(lhs.getClass(), group[ rhsIndex ].getClass())
+                    .findViolationBetweenGroups(lhs, group, rhsIndex, end, allowHashCodeCollision)
+            ;
+
+            if (rhsIndex != end) return rhsIndex;
+        }
+
+        return group.length;
+    }
+
+    /**
+     * @return Index past the last instance of the same class as the one at start
+     */
+    private static int runEnd(final Object[] group, final int start, final int skip) {
+
+        final Class<?> type = group[ start ].getClass();
+
+        int end = start + 1;
+        while (end < group.length && end != skip && group[ end ].getClass() == type) end++;
+
+        return end;
+    }
+
+    synchronized Checks getChecks(final Class<?> lhs, final Class<?> rhs) {
+
+        Map<Class<?>, Checks> lhsCopies = copies.get(lhs);
+        if (lhsCopies == null) {
+
+            lhsCopies = new HashMap<Class<?>, Checks>();
+            copies.put(lhs, lhsCopies);
+        }
+
+        Checks checks = lhsCopies.get(rhs);
+        if (checks == null) {
+
+            checks = createCopy();
+            lhsCopies.put(rhs, checks);
+        }
+
+        return checks;
+    }
+
+    private static Checks createCopy() {
+
+        try {
+
+            // copy does not share runtime package with this class
+            final Constructor<?> constructor = new CopyingClassLoader().define().getDeclaredConstructor();
+            constructor.setAccessible(true);
+
+            return (Checks) constructor.newInstance();
+        } catch (NoSuchMethodException ex) {
+
+            throw unableToSpecialize(ex);
+        } catch (InstantiationException ex) {
+
+            throw unableToSpecialize(ex);
+        } catch (IllegalAccessException ex) {
+
+            throw unableToSpecialize(ex);
+        } catch (InvocationTargetException ex) {
+
+            throw unableToSpecialize(ex);
+        }
+    }
+
+    private static IllegalStateException unableToSpecialize(final Exception cause) {
+
+        return new IllegalStateException("Unable to specialize call sites", cause);
+    }
+
+    private static byte[] readBytecode() {
+
+        final InputStream in = SpecializedChecks.class.getResourceAsStream(
+                SpecializedChecks.class.getSimpleName() + ".class"
+        );
+
+        if (in == null) throw new IllegalStateException(
+                "Bytecode of " + SpecializedChecks.class.getName() + " not found"
+        );
+
+        try {
+
+            try {
+
+                final ByteArrayOutputStream out = new ByteArrayOutputStream();
+                final byte[] buffer = new byte[ 4096 ];
+                for (int read; (read = in.read(buffer)) != -1;) {
+
+                    out.write(buffer, 0, read);
+                }
+
+                return out.toByteArray();
+            } finally {
+
+                in.close();
+            }
+        } catch (IOException ex) {
+
+            throw new IllegalStateException(
+                    "Unable to read bytecode of " + SpecializedChecks.class.getName(), ex
+            );
+        }
+    }
+
+    /**
+     * Checks of single combination of concrete classes.
+     *
+     * <p>Public as the copies do not share runtime package with the checker.</p>
+     *
+     * @author Oliver Gondža (ogondza@gmail.com)
+     */
+    public interface Checks {
+
+        boolean isSound(final Object instance);
+
+        int findViolationWithinGroup(
+                final Object lhs, final Object[] group, final int from, final int to
+        );
+
+        int findViolationBetweenGroups(
+                final Object lhs,
+                final Object[] group,
+                final int from,
+                final int to,
+                final boolean allowHashCodeCollision
+        );
+    }
+
+    /**
+     * Loader defining its own copy of {@link SpecializedChecks}.
+     */
+    private static final class CopyingClassLoader extends ClassLoader {
+
+        private CopyingClassLoader() {
+
+            super(CallSiteSpecializer.class.getClassLoader());
+        }
+
+        private Class<?> define() {
+
+            return defineClass(SpecializedChecks.class.getName(), BYTECODE, 0, BYTECODE.length);
+        }
+
+        @Override
+        protected Class<?> loadClass(
+                final String className, final boolean resolve
+        ) throws ClassNotFoundException {
+
+            // the copy refers to itself
+            final Class<?> loaded = findLoadedClass(className);
+            if (loaded != null) return loaded;
+
+            return super.loadClass(className, resolve);
+        }
+    }
+}
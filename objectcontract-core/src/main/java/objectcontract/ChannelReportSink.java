@@ -0,0 +1,126 @@
+package objectcontract;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+
+/**
+ * Report sink writing records to a file channel through a fixed size buffer.
+ *
+ * @author Oliver Gondža (ogondza@gmail.com)
+ */
+abstract class ChannelReportSink implements ReportSink {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final File file;
+    private final RandomAccessFile raf;
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+    ChannelReportSink(final File file) {
+
+        if (file == null) throw new NullPointerException(
+                "No report file provided"
+        );
+
+        this.file = file;
+
+        try {
+
+            this.raf = new RandomAccessFile(file, "rw");
+            raf.setLength(0);
+        } catch (IOException ex) {
+
+            throw new IllegalStateException("Unable to open report " + file, ex);
+        }
+
+        this.channel = raf.getChannel();
+    }
+
+    final void write(final String record) {
+
+        final byte[] bytes = record.getBytes(UTF8);
+
+        try {
+
+            if (buffer.remaining() < bytes.length) flush();
+
+            if (buffer.remaining() < bytes.length) {
+
+                write(ByteBuffer.wrap(bytes));
+            } else {
+
+                buffer.put(bytes);
+            }
+        } catch (IOException ex) {
+
+            throw new IllegalStateException("Unable to write report " + file, ex);
+        }
+    }
+
+    /**
+     * Overwrite already written content at given position.
+     */
+    final void overwrite(final long position, final String content) {
+
+        try {
+
+            flush();
+
+            final ByteBuffer bytes = ByteBuffer.wrap(content.getBytes(UTF8));
+            while (bytes.hasRemaining()) {
+
+                channel.write(bytes, position + bytes.position());
+            }
+        } catch (IOException ex) {
+
+            throw new IllegalStateException("Unable to write report " + file, ex);
+        }
+    }
+
+    /**
+     * Write tail of the report before it is closed.
+     */
+    void finish() {}
+
+    public void close() {
+
+        try {
+
+            finish();
+            flush();
+        } catch (IOException ex) {
+
+            throw new IllegalStateException("Unable to write report " + file, ex);
+        } finally {
+
+            try {
+
+                raf.close();
+            } catch (IOException ex) {
+
+                // Nothing left to release
+            }
+        }
+    }
+
+    private void flush() throws IOException {
+
+        buffer.flip();
+        write(buffer);
+        buffer.clear();
+    }
+
+    private void write(final ByteBuffer bytes) throws IOException {
+
+        while (bytes.hasRemaining()) {
+
+            channel.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package objectcontract;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Class to compare equality semantics of two versions of the same classes.
+ *
+ * <p>Both versions are loaded from their own classpath by isolated class
+ * loaders. The same {@link GroupFactory} creates the groups using either
+ * version and outcomes of <code>equals</code> for every pair of instances
+ * as well as <code>hashCode</code> of every instance are compared. Factory
+ * has to be present on both classpaths so it is linked against the version
+ * it is loaded with.</p>
+ *
+ * <pre>
+ * new DifferentialChecker(oldJars, newJars).enforceSameSemantics("com.acme.KeyFixtures");
+ * </pre>
+ *
+ * @author Oliver Gondža (ogondza@gmail.com)
+ */
+public final class DifferentialChecker {
+
+    private static final int MAX_REPORTED = 100;
+
+    private final URL[] oldClasspath;
+    private final URL[] newClasspath;
+
+    /**
+     * @param oldClasspath Jars or directories of the old version
+     * @param newClasspath Jars or directories of the new version
+     */
+    public DifferentialChecker(final File[] oldClasspath, final File[] newClasspath) {
+
+        if (oldClasspath == null || newClasspath == null) throw new NullPointerException(
+                "No classpath provided"
+        );
+
+        this.oldClasspath = toUrls(oldClasspath);
+        this.newClasspath = toUrls(newClasspath);
+    }
+
+    private static URL[] toUrls(final File[] classpath) {
+
+        final URL[] urls = new URL[ classpath.length ];
+        for (int i = 0; i < classpath.length; i++) {
+
+            try {
+
+                urls[ i ] = classpath[ i ].toURI().toURL();
+            } catch (MalformedURLException ex) {
+
+                throw new IllegalArgumentException("Invalid classpath entry " + classpath[ i ], ex);
+            }
+        }
+
+        return urls;
+    }
+
+    /**
+     * Enforce that both versions have the same equality semantics and hash codes.
+     *
+     * @param factoryClassName Name of {@link GroupFactory} implementation
+     * present on both classpaths.
+     * @return this
+     */
+    public DifferentialChecker enforceSameSemantics(final String factoryClassName) {
+
+        if (factoryClassName == null) throw new NullPointerException(
+                "No factory provided"
+        );
+
+        final IsolatedClassLoader oldLoader = new IsolatedClassLoader(oldClasspath);
+        final IsolatedClassLoader newLoader = new IsolatedClassLoader(newClasspath);
+
+        try {
+
+            final Object[][] oldGroups = createGroups(oldLoader, factoryClassName);
+            final Object[][] newGroups = createGroups(newLoader, factoryClassName);
+
+            compare(flatten(oldGroups, newGroups), flatten(newGroups, oldGroups));
+        } finally {
+
+            close(oldLoader);
+            close(newLoader);
+        }
+
+        return this;
+    }
+
+    private Object[][] createGroups(final ClassLoader loader, final String factoryClassName) {
+
+        final Thread thread = Thread.currentThread();
+        final ClassLoader contextLoader = thread.getContextClassLoader();
+        thread.setContextClassLoader(loader);
+
+        try {
+
+            final Class<?> type = loader.loadClass(factoryClassName);
+            if (type.getClassLoader() != loader) throw new IllegalStateException(
+                    factoryClassName + " is not present on compared classpath"
+            );
+
+            return ((GroupFactory) type.getDeclaredConstructor().newInstance()).getGroups();
+        } catch (ClassNotFoundException ex) {
+
+            throw new IllegalStateException(factoryClassName + " is not present on compared classpath", ex);
+        } catch (NoSuchMethodException ex) {
+
+            throw new IllegalStateException("Unable to instantiate " + factoryClassName, ex);
+        } catch (InstantiationException ex) {
+
+            throw new IllegalStateException("Unable to instantiate " + factoryClassName, ex);
+        } catch (IllegalAccessException ex) {
+
+            throw new IllegalStateException("Unable to instantiate " + factoryClassName, ex);
+        } catch (InvocationTargetException ex) {
+
+            throw new IllegalStateException("Unable to instantiate " + factoryClassName, ex.getCause());
+        } catch (NoClassDefFoundError ex) {
+
+            throw new IllegalStateException(
+                    factoryClassName + " refers to " + ex.getMessage() + " missing on compared classpath", ex
+            );
+        } finally {
+
+            thread.setContextClassLoader(contextLoader);
+        }
+    }
+
+    /**
+     * Flatten groups ensuring both versions provided the same shape.
+     */
+    private List<Instance> flatten(final Object[][] groups, final Object[][] otherGroups) {
+
+        if (groups.length != otherGroups.length) throw mismatch();
+
+        final List<Instance> instances = new ArrayList<Instance>();
+        for (int groupIndex = 0; groupIndex < groups.length; groupIndex++) {
+
+            if (groups[ groupIndex ].length != otherGroups[ groupIndex ].length) throw mismatch();
+
+            for (int instanceIndex = 0; instanceIndex < groups[ groupIndex ].length; instanceIndex++) {
+
+                instances.add(new Instance(
+                        groups[ groupIndex ][ instanceIndex ], groupIndex, instanceIndex
+                ));
+            }
+        }
+
+        return instances;
+    }
+
+    private IllegalStateException mismatch() {
+
+        return new IllegalStateException(
+                "Factory created different groups for compared versions"
+        );
+    }
+
+    private void compare(final List<Instance> oldInstances, final List<Instance> newInstances) {
+
+        final List<String> failures = new ArrayList<String>();
+        int failureCount = 0;
+
+        for (int lhs = 0; lhs < oldInstances.size(); lhs++) {
+
+            final Instance oldLhs = oldInstances.get(lhs);
+            final Instance newLhs = newInstances.get(lhs);
+
+            final int oldHash = oldLhs.instance.hashCode();
+            final int newHash = newLhs.instance.hashCode();
+            if (oldHash != newHash && failureCount++ < MAX_REPORTED) failures.add(String.format(
+                    "%s hashCode: %s in old, %s in new", oldLhs, oldHash, newHash
+            ));
+
+            for (int rhs = 0; rhs < oldInstances.size(); rhs++) {
+
+                final Instance oldRhs = oldInstances.get(rhs);
+                final boolean oldEquals = oldLhs.instance.equals(oldRhs.instance);
+                final boolean newEquals = newLhs.instance.equals(newInstances.get(rhs).instance);
+
+                if (oldEquals != newEquals && failureCount++ < MAX_REPORTED) failures.add(String.format(
+                        "%s equals %s: %s in old, %s in new", oldLhs, oldRhs, oldEquals, newEquals
+                ));
+            }
+        }
+
+        if (failureCount == 0) return;
+
+        final StringBuilder message = new StringBuilder(String.format(
+                "Failed asserting that compared versions have the same equality semantics (%s differences):",
+                failureCount
+        ));
+
+        final String separator = System.getProperty("line.separator");
+        for (final String failure: failures) {
+
+            message.append(separator).append(failure);
+        }
+
+        if (failureCount > failures.size()) {
+
+            message.append(separator).append("...");
+        }
+
+        throw new AssertionError(message.toString());
+    }
+
+    private void close(final URLClassLoader loader) {
+
+        try {
+
+            loader.close();
+        } catch (IOException ex) {
+
+            // Nothing left to release
+        }
+    }
+
+    private static final class Instance {
+
+        private final Object instance;
+        private final int groupIndex;
+        private final int instanceIndex;
+
+        private Instance(final Object instance, final int groupIndex, final int instanceIndex) {
+
+            this.instance = instance;
+            this.groupIndex = groupIndex;
+            this.instanceIndex = instanceIndex;
+        }
+
+        @Override
+        public String toString() {
+
+            return String.format("[%s;%s]", groupIndex, instanceIndex);
+        }
+    }
+
+    /**
+     * Child-first class loader sharing only the platform classes and
+     * {@link GroupFactory} with its parent. Other classes have to be present
+     * on the compared classpath.
+     */
+    private static final class IsolatedClassLoader extends URLClassLoader {
+
+        private IsolatedClassLoader(final URL[] classpath) {
+
+            super(classpath, DifferentialChecker.class.getClassLoader());
+        }
+
+        @Override
+        protected synchronized Class<?> loadClass(
+                final String name, final boolean resolve
+        ) throws ClassNotFoundException {
+
+            if (isShared(name)) return super.loadClass(name, resolve);
+
+            Class<?> type = findLoadedClass(name);
+            if (type == null) {
+
+                try {
+
+                    type = findClass(name);
+                } catch (ClassNotFoundException ex) {
+
+                    // never fall back to the parent, that would mix the versions
+                    throw new ClassNotFoundException(
+                            name + " is neither present on compared classpath nor shared", ex
+                    );
+                }
+            }
+
+            if (resolve) resolveClass(type);
+
+            return type;
+        }
+
+        private boolean isShared(final String name) {
+
+            return name.startsWith("java.")
+                    || name.startsWith("javax.")
+                    || name.startsWith("sun.")
+                    || name.startsWith("jdk.")
+                    || name.equals(GroupFactory.class.getName())
+            ;
+        }
+    }
+}
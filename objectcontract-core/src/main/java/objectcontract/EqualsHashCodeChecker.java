@@ -1,5 +1,6 @@
 package objectcontract;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.IdentityHashMap;
@@ -39,16 +40,58 @@ import java.util.Map;
  *   provided <code>a</code> and <code>b</code> are not equal).</li>
  * </ul>
  *
+ * <p>Checks are performed in tiles. Tile is a pair of equality groups
+ * (<code>lhsGroup</code>, <code>rhsGroup</code>). Tile of a group with itself
+ * verifies the instances of that group alone and among each other, tile of two
+ * different groups verifies instances of <code>lhsGroup</code> against the
+ * instances of <code>rhsGroup</code>. Long running verifications can record
+ * completed tiles to a progress file so an interrupted run can be resumed.
+ * Tiles can also be split among several shards verified by different JVMs.</p>
+ *
+ * <p>Tiles are verified in declaration order by default. Alternatively, they
+ * can be scheduled by the likelihood of failure so the first violation is
+ * discovered as soon as possible.</p>
+ *
+ * <p>Outcome of individual checks can be streamed to a {@link ReportSink}
+ * in a machine-readable format.</p>
+ *
  * @author Oliver Gondža (ogondza@gmail.com)
  * @see EqualsHashCodeAsserter
  */
 public final class EqualsHashCodeChecker {
 
-    private static final String PREFIX = "Failed asserting that ";
+    static final String PREFIX = "Failed asserting that ";
+
+    /**
+     * System property holding index of the shard to verify.
+     */
+    public static final String SHARD_INDEX_PROPERTY = "objectcontract.shard.index";
+
+    /**
+     * System property holding number of shards.
+     */
+    public static final String SHARD_COUNT_PROPERTY = "objectcontract.shard.count";
+
+    /**
+     * System property requesting hashCode snapshots to be recorded.
+     */
+    public static final String SNAPSHOT_UPDATE_PROPERTY = "objectcontract.snapshot.update";
 
     private final EqualsHashCodeAsserter asserter;
-    private final Object[][] groups;
+    private final EqualsHashCodeAsserter checkingAsserter;
+    private final GroupSource groups;
     private final boolean allowHashCodeCollision;
+    private final File progressFile;
+    private final int shardIndex;
+    private final int shardCount;
+    private final File shardReport;
+    private final boolean scheduleByRisk;
+    private final File failureHistory;
+    private final ReportSink reportSink;
+    private final boolean reportPassedChecks;
+    private final boolean shrinkFailures;
+    private final boolean specializeCallSites;
+    private final CallSiteSpecializer specializer;
 
     /**
      * Helper class to facilitate Checker configuration
@@ -59,7 +102,18 @@ public final class EqualsHashCodeChecker {
 
         final EqualsHashCodeAsserter asserter;
         List<List<Object>> groups = new ArrayList<List<Object>>();
+        GroupSource groupSource = null;
         boolean allowHashCodeCollision = false;
+        File progressFile = null;
+        int shardIndex = 0;
+        int shardCount = 1;
+        File shardReport = null;
+        boolean scheduleByRisk = false;
+        File failureHistory = null;
+        ReportSink reportSink = null;
+        boolean reportPassedChecks = false;
+        boolean shrinkFailures = false;
+        boolean specializeCallSites = false;
 
         Builder(final EqualsHashCodeAsserter asserter) {
 
@@ -83,68 +137,298 @@ public final class EqualsHashCodeChecker {
         }
 
         /**
-         * Set equality group.
+         * Record verified tiles to progress file and resume from it.
          *
-         * @param group A group to set.
+         * <p>Tiles recorded as completed by the previous run are skipped.
+         * Tiles that failed are verified again, before any other tile. The
+         * file is created when it does not exist and has to be deleted in
+         * order to start over. Progress file created for different groups is
+         * rejected. Groups are identified by their sizes and the classes of
+         * their instances.</p>
+         *
+         * @param progressFile A file to record progress to.
          * @return this
          */
-        public Builder setGroup(final Object... group) {
+        public Builder checkpoint(final File progressFile) {
+
+            if (progressFile == null) throw new NullPointerException(
+                    "No progress file provided"
+            );
 
-            groups.add(validateGroup(group));
+            this.progressFile = progressFile;
             return this;
         }
 
         /**
-         * Set several equality groups.
+         * Verify only a subset of tiles.
          *
-         * @param groups Groups to set
+         * <p>Tiles are distributed among shards deterministically so shards
+         * verified by different JVMs together cover all the tiles exactly
+         * once.</p>
+         *
+         * @param index Zero based index of the shard to verify.
+         * @param count Number of shards.
          * @return this
+         * @see #shardReport(File)
+         * @see #shardFromSystemProperties()
          */
-        public Builder setGroups(final Object[]... groups) {
+        public Builder shard(final int index, final int count) {
 
-            for ( final Object[] groupCandidate: groups ) {
+            if (count < 1) throw new IllegalStateException(
+                    "Invalid shard count " + count
+            );
 
-                this.setGroup(groupCandidate);
+            if (index < 0 || index >= count) throw new IllegalStateException(
+                    "Invalid shard index " + index + " of " + count + " shards"
+            );
+
+            this.shardIndex = index;
+            this.shardCount = count;
+            return this;
+        }
+
+        /**
+         * Verify only a subset of tiles configured by system properties.
+         *
+         * <p>Shard is read from system properties
+         * {@value EqualsHashCodeChecker#SHARD_INDEX_PROPERTY} and
+         * {@value EqualsHashCodeChecker#SHARD_COUNT_PROPERTY}. The checker
+         * is not sharded when neither of them is set.</p>
+         *
+         * @return this
+         * @see #shard(int, int)
+         */
+        public Builder shardFromSystemProperties() {
+
+            final String index = System.getProperty(SHARD_INDEX_PROPERTY);
+            final String count = System.getProperty(SHARD_COUNT_PROPERTY);
+
+            if (index == null && count == null) return this;
+
+            if (index == null || count == null) throw new IllegalStateException(String.format(
+                    "System properties %s and %s have to be set together",
+                    SHARD_INDEX_PROPERTY, SHARD_COUNT_PROPERTY
+            ));
+
+            try {
+
+                return shard(Integer.parseInt(index.trim()), Integer.parseInt(count.trim()));
+            } catch (NumberFormatException ex) {
+
+                throw new IllegalStateException(
+                        "Invalid shard " + index + " of " + count + " shards", ex
+                );
             }
+        }
+
+        /**
+         * Write outcome of the shard to a report file.
+         *
+         * @param shardReport A file to write the report to.
+         * @return this
+         * @see ShardReport#merge(ShardReport...)
+         */
+        public Builder shardReport(final File shardReport) {
+
+            if (shardReport == null) throw new NullPointerException(
+                    "No report file provided"
+            );
 
+            this.shardReport = shardReport;
             return this;
         }
 
-        private List<Object> validateGroup(final Object[] groupCandidate) {
+        /**
+         * Verify tiles that are likely to fail first.
+         *
+         * <p>Reflexivity and inequality to <code>null</code> are verified for
+         * all the instances first. Tiles are then ordered by the sum of
+         * weights of the traps they contain: groups with classes that failed
+         * in previous runs, groups with colliding hash codes, instances of
+         * different concrete classes and instances of the same group.</p>
+         *
+         * @return this
+         * @see #failureHistory(File)
+         */
+        public Builder scheduleByRisk() {
 
-            final int groupNumber = groups.size();
+            scheduleByRisk = true;
+            return this;
+        }
 
-            if (groupCandidate.length == 0) throw new IllegalStateException(
-                    "Group " + groupNumber + " is empty"
+        /**
+         * Record classes of failed instances to a history file.
+         *
+         * <p>Tiles containing the classes are verified first by subsequent
+         * runs {@link #scheduleByRisk() scheduled by risk}.</p>
+         *
+         * @param failureHistory A file to keep the history in.
+         * @return this
+         */
+        public Builder failureHistory(final File failureHistory) {
+
+            if (failureHistory == null) throw new NullPointerException(
+                    "No history file provided"
             );
 
-            List<Object> group = Arrays.asList(groupCandidate);
+            this.failureHistory = failureHistory;
+            return this;
+        }
+
+        /**
+         * Stream outcome of the checks to a report sink.
+         *
+         * <p>Failed checks are always reported, passed checks are reported
+         * only when {@link #reportPassedChecks()} is configured. Records are
+         * written as the checks are performed so memory consumption does not
+         * depend on the number of checks. Sink has to be closed by the
+         * caller once the verification is over.</p>
+         *
+         * @param reportSink A sink to report to.
+         * @return this
+         * @see JsonLinesReportSink
+         * @see JUnitXmlReportSink
+         */
+        public Builder reportTo(final ReportSink reportSink) {
+
+            if (reportSink == null) throw new NullPointerException(
+                    "No report sink provided"
+            );
+
+            this.reportSink = reportSink;
+            return this;
+        }
+
+        /**
+         * Report passed checks as well as failed ones.
+         *
+         * @return this
+         * @see #reportTo(ReportSink)
+         */
+        public Builder reportPassedChecks() {
+
+            reportPassedChecks = true;
+            return this;
+        }
+
+        /**
+         * Reduce failure to the smallest set of instances it reproduces with.
+         *
+         * <p>When a tile fails, its instances are verified alone, in pairs and
+         * in triples until a candidate that fails by itself is found. Failure
+         * is then reported together with the checker configuration that
+         * reproduces it using the candidate instances only.</p>
+         *
+         * @return this
+         */
+        public Builder shrinkFailures() {
+
+            shrinkFailures = true;
+            return this;
+        }
+
+        /**
+         * Keep <code>equals</code> and <code>hashCode</code> call sites monomorphic.
+         *
+         * <p>Instances are compared by a copy of the checking loop defined for
+         * every combination of concrete classes, so every copy collects type
+         * profile of single class pair and the calls are compiled the way they
+         * would be in production. Asserter is invoked only for the checks the
+         * loop finds violated, so passed checks can not be reported.</p>
+         *
+         * @return this
+         */
+        public Builder specializeCallSites() {
+
+            specializeCallSites = true;
+            return this;
+        }
 
-            if (group.contains(null)) throw new IllegalStateException(
-                    "Null instance provided in group " + groupNumber
+        /**
+         * Set equality group.
+         *
+         * @param group A group to set.
+         * @return this
+         */
+        public Builder setGroup(final Object... group) {
+
+            groups.add(validateGroup(groups.size(), group));
+            return this;
+        }
+
+        /**
+         * Set equality group of the prototype and its copies.
+         *
+         * <p>Records are copied through their canonical constructor. Other
+         * classes have to provide either copy constructor or constructor
+         * with parameters of the same types as the instance fields,
+         * superclass fields first. Copies are shallow. The constructor is
+         * matched heuristically by field types, not by field names, so it
+         * is rejected unless the fields of the copy end up holding the same
+         * values as those of the prototype. Equality of the copies is
+         * verified by the checker.</p>
+         *
+         * @param prototype An instance to copy.
+         * @param copies Number of copies to add to the group.
+         * @return this
+         */
+        public Builder setGroupFromPrototype(final Object prototype, final int copies) {
+
+            if (prototype == null) throw new NullPointerException(
+                    "No prototype provided"
             );
 
-            if (!isUnique(group)) throw new IllegalStateException(
-                    "Duplicate instances provided in group " + groupNumber
+            if (copies < 0) throw new IllegalStateException(
+                    "Invalid number of copies " + copies
             );
 
-            return group;
+            final PrototypeCopier copier = PrototypeCopier.forClass(prototype.getClass());
+
+            final Object[] group = new Object[ copies + 1 ];
+            group[ 0 ] = prototype;
+            for (int i = 1; i < group.length; i++) {
+
+                group[ i ] = copier.copy(prototype);
+            }
+
+            return setGroup(group);
         }
 
-        private boolean isUnique(final List<Object> group) {
+        /**
+         * Read equality groups from group source.
+         *
+         * <p>Groups of the source are loaded once they are needed so only
+         * the groups of the tile that is being verified are held in memory.
+         * Group source can not be combined with groups set directly.</p>
+         *
+         * @param groupSource Source of the groups.
+         * @return this
+         * @see GroupCorpus
+         */
+        public Builder setGroupSource(final GroupSource groupSource) {
 
-            Map<Object, Object> set = new IdentityHashMap<Object, Object>(
-                    group.size()
+            if (groupSource == null) throw new NullPointerException(
+                    "No group source provided"
             );
 
-            final Object fake = new Object ();
-            for ( final Object instance: group ) {
+            this.groupSource = groupSource;
+            return this;
+        }
+
+        /**
+         * Set several equality groups.
+         *
+         * @param groups Groups to set
+         * @return this
+         */
+        public Builder setGroups(final Object[]... groups) {
+
+            for ( final Object[] groupCandidate: groups ) {
 
-                final boolean isNew = set.put(instance, fake) == null;
-                if (!isNew) return false;
+                this.setGroup(groupCandidate);
             }
 
-            return true;
+            return this;
         }
 
         /**
@@ -154,12 +438,65 @@ public final class EqualsHashCodeChecker {
          */
         public EqualsHashCodeChecker getChecker() {
 
-            if (!groups.isEmpty()) return new EqualsHashCodeChecker(this);
+            if (groupSource != null && !groups.isEmpty()) throw new IllegalStateException(
+                    "Groups can not be combined with group source"
+            );
+
+            if (reportPassedChecks && reportSink == null) throw new IllegalStateException(
+                    "Passed checks can not be reported without report sink"
+            );
+
+            if (reportPassedChecks && specializeCallSites) throw new IllegalStateException(
+                    "Passed checks can not be reported when call sites are specialized"
+            );
+
+            if (groupSource != null && groupSource.getGroupCount() == 0) throw new IllegalStateException(
+                    "No groups provided"
+            );
+
+            if (groupSource != null || !groups.isEmpty()) return new EqualsHashCodeChecker(this);
 
             throw new IllegalStateException("No groups provided");
         }
     }
 
+    static List<Object> validateGroup(
+            final int groupNumber, final Object[] groupCandidate
+    ) {
+
+        if (groupCandidate.length == 0) throw new IllegalStateException(
+                "Group " + groupNumber + " is empty"
+        );
+
+        List<Object> group = Arrays.asList(groupCandidate);
+
+        if (group.contains(null)) throw new IllegalStateException(
+                "Null instance provided in group " + groupNumber
+        );
+
+        if (!isUnique(group)) throw new IllegalStateException(
+                "Duplicate instances provided in group " + groupNumber
+        );
+
+        return group;
+    }
+
+    private static boolean isUnique(final List<Object> group) {
+
+        Map<Object, Object> set = new IdentityHashMap<Object, Object>(
+                group.size()
+        );
+
+        final Object fake = new Object ();
+        for ( final Object instance: group ) {
+
+            final boolean isNew = set.put(instance, fake) == null;
+            if (!isNew) return false;
+        }
+
+        return true;
+    }
+
     /**
      * Instantiate checker builder.
      *
@@ -174,14 +511,28 @@ public final class EqualsHashCodeChecker {
     private EqualsHashCodeChecker(final Builder builder) {
 
         this.asserter = builder.asserter;
+        this.reportSink = builder.reportSink;
+        this.reportPassedChecks = builder.reportPassedChecks;
+        this.shrinkFailures = builder.shrinkFailures;
+        this.specializeCallSites = builder.specializeCallSites;
+        this.specializer = specializeCallSites ? new CallSiteSpecializer() : null;
+
+        this.checkingAsserter = reportSink == null
+                ? asserter
+                : new ReportingAsserter(asserter, reportSink, reportPassedChecks)
+        ;
         this.allowHashCodeCollision = builder.allowHashCodeCollision;
-
-        this.groups = new Object[ builder.groups.size() ][];
-
-        for ( int i = 0; i < builder.groups.size (); i++ ) {
-
-            this.groups[ i ] = builder.groups.get(i).toArray();
-        }
+        this.progressFile = builder.progressFile;
+        this.shardIndex = builder.shardIndex;
+        this.shardCount = builder.shardCount;
+        this.shardReport = builder.shardReport;
+        this.scheduleByRisk = builder.scheduleByRisk;
+        this.failureHistory = builder.failureHistory;
+
+        this.groups = builder.groupSource != null
+                ? builder.groupSource
+                : new ArrayGroupSource(builder.groups)
+        ;
     }
 
     @Override
@@ -192,22 +543,61 @@ public final class EqualsHashCodeChecker {
         EqualsHashCodeChecker checker = (EqualsHashCodeChecker) o;
 
         if (allowHashCodeCollision != checker.allowHashCodeCollision) return false;
+        if (progressFile == null
+                ? checker.progressFile != null
+                : !progressFile.equals(checker.progressFile)
+        ) return false;
+        if (shardIndex != checker.shardIndex) return false;
+        if (shardCount != checker.shardCount) return false;
+        if (shardReport == null
+                ? checker.shardReport != null
+                : !shardReport.equals(checker.shardReport)
+        ) return false;
+        if (scheduleByRisk != checker.scheduleByRisk) return false;
+        if (failureHistory == null
+                ? checker.failureHistory != null
+                : !failureHistory.equals(checker.failureHistory)
+        ) return false;
+        if (reportSink == null
+                ? checker.reportSink != null
+                : !reportSink.equals(checker.reportSink)
+        ) return false;
+        if (reportPassedChecks != checker.reportPassedChecks) return false;
+        if (shrinkFailures != checker.shrinkFailures) return false;
+        if (specializeCallSites != checker.specializeCallSites) return false;
         if (!asserter.equals(checker.asserter)) return false;
 
-        return Arrays.deepEquals(groups, checker.groups);
+        return groups.equals(checker.groups);
     }
 
     @Override
     public int hashCode() {
 
         int hash = 7;
-        hash += Arrays.deepHashCode(groups) * 31;
+        hash += groups.hashCode() * 31;
         hash += asserter.hashCode() * 31;
         hash += allowHashCodeCollision ? 1 : 0 * 31;
+        hash += progressFile == null ? 0 : progressFile.hashCode() * 31;
+        hash += (shardIndex * 31 + shardCount) * 31;
+        hash += shardReport == null ? 0 : shardReport.hashCode() * 31;
+        hash += scheduleByRisk ? 1 : 0 * 31;
+        hash += failureHistory == null ? 0 : failureHistory.hashCode() * 31;
+        hash += reportSink == null ? 0 : reportSink.hashCode() * 31;
+        hash += reportPassedChecks ? 1 : 0 * 31;
+        hash += shrinkFailures ? 1 : 0 * 31;
+        hash += specializeCallSites ? 1 : 0 * 31;
 
         return hash;
     }
 
+    /**
+     * @return Equality groups of the checker
+     */
+    GroupSource getGroupSource() {
+
+        return groups;
+    }
+
     /**
      * Enforce Object invariants
      *
@@ -215,29 +605,403 @@ public final class EqualsHashCodeChecker {
      */
     public EqualsHashCodeChecker enforceInvariants() {
 
-        for (int groupIndex = 0; groupIndex < groups.length; groupIndex++) {
+        final Run run = new Run();
 
-            final Object[] singleGroup = groups[groupIndex];
+        try {
 
-            for (int instanceIndex = 0; instanceIndex < singleGroup.length; instanceIndex++) {
+            if (scheduleByRisk) {
 
-                final Object instance = singleGroup[ instanceIndex ];
+                run.verifyByRisk();
+            } else {
 
-                applyOnItself(instance, groupIndex, instanceIndex);
-                applyOnGroup(instance, groupIndex, instanceIndex);
-                applyOnOtherGroups(instance, groupIndex, instanceIndex);
+                run.verifyInOrder();
             }
+        } catch (RuntimeException ex) {
+
+            run.failures.add(String.valueOf(ex.getMessage()));
+            throw ex;
+        } catch (AssertionError ex) {
+
+            run.failures.add(String.valueOf(ex.getMessage()));
+
+            if (shrinkFailures && run.failedLhsGroup != null) throw new FailureShrinker(
+                    asserter, allowHashCodeCollision
+            ).shrink(
+                    ex,
+                    run.failedLhsGroup, run.failedRhsGroup,
+                    run.failedLhsGroupIndex, run.failedRhsGroupIndex
+            );
+
+            throw ex;
+        } catch (Error ex) {
+
+            run.failures.add(String.valueOf(ex.getMessage()));
+            throw ex;
+        } finally {
+
+            run.close();
         }
 
         return this;
     }
 
+    /**
+     * Enforce that every instance produces the same hashCode in different JVM.
+     *
+     * <p>Groups are serialized and deserialized by freshly forked JVM with
+     * the same classpath. Every instance with hashCode that differs between
+     * the processes is reported. Note that serialization preserves hash codes
+     * cached in fields, use {@link #enforceHashCodeDeterminism(Class)} to
+     * recreate instances from scratch.</p>
+     *
+     * @return this
+     */
+    public EqualsHashCodeChecker enforceHashCodeDeterminism() {
+
+        HashCodeDeterminism.enforce(groups, null);
+        return this;
+    }
+
+    /**
+     * Enforce that every instance produces the same hashCode in different JVM.
+     *
+     * <p>Groups are recreated by the factory in freshly forked JVM with the
+     * same classpath. Every instance with hashCode that differs between the
+     * processes is reported.</p>
+     *
+     * @param factory Factory creating the same groups as the checker uses.
+     * @return this
+     */
+    public EqualsHashCodeChecker enforceHashCodeDeterminism(
+            final Class<? extends GroupFactory> factory
+    ) {
+
+        if (factory == null) throw new NullPointerException(
+                "No factory provided"
+        );
+
+        HashCodeDeterminism.enforce(groups, factory);
+        return this;
+    }
+
+    /**
+     * Enforce that hash codes did not change since the snapshot was taken.
+     *
+     * <p>Class and hashCode of every instance is compared with the record of
+     * the same group and index in the golden file. Golden file is written,
+     * instead of compared, only when system property
+     * {@value #SNAPSHOT_UPDATE_PROPERTY} is set to <code>true</code>. Missing
+     * golden file is rejected otherwise.</p>
+     *
+     * @param golden Golden file with the snapshot.
+     * @return this
+     */
+    public EqualsHashCodeChecker enforceHashCodeSnapshot(final File golden) {
+
+        if (golden == null) throw new NullPointerException(
+                "No golden file provided"
+        );
+
+        HashCodeSnapshot.enforce(
+                groups, golden, Boolean.getBoolean(SNAPSHOT_UPDATE_PROPERTY)
+        );
+
+        return this;
+    }
+
+    /**
+     * Single verification of the tiles.
+     */
+    private final class Run {
+
+        private final int groupCount = groups.getGroupCount();
+
+        private final ShardPlan plan = shardCount == 1
+                ? null
+                : new ShardPlan(groups, shardIndex, shardCount)
+        ;
+
+        private final int fingerprint = progressFile == null && shardReport == null
+                ? 0
+                : fingerprint()
+        ;
+
+        private final ProgressFile progress = progressFile == null
+                ? null
+                : ProgressFile.open(progressFile, groupCount, fingerprint)
+        ;
+
+        private final FailureHistory history = failureHistory == null
+                ? null
+                : new FailureHistory(failureHistory)
+        ;
+
+        // tiles completed by previous runs are accounted for upfront
+        private long verifiedTiles = countCompleted();
+        private final List<String> failures = new ArrayList<String>();
+
+        private Object[] failedLhsGroup = null;
+        private Object[] failedRhsGroup = null;
+        private int failedLhsGroupIndex;
+        private int failedRhsGroupIndex;
+
+        private void verifyInOrder() {
+
+            verifyFailed();
+
+            for (int lhsGroupIndex = 0; lhsGroupIndex < groupCount; lhsGroupIndex++) {
+
+                Object[] lhsGroup = null;
+
+                for (int rhsGroupIndex = 0; rhsGroupIndex < groupCount; rhsGroupIndex++) {
+
+                    if (!isPending(lhsGroupIndex, rhsGroupIndex)) continue;
+
+                    if (lhsGroup == null) lhsGroup = groups.getGroup(lhsGroupIndex);
+
+                    verify(lhsGroup, lhsGroupIndex, rhsGroupIndex, true);
+                }
+            }
+        }
+
+        private void verifyByRisk() {
+
+            verifyFailed();
+
+            final RiskProfile risk = new RiskProfile(groupCount, history, allowHashCodeCollision);
+
+            // cheap checks first, profiling the groups on the way
+            for (int groupIndex = 0; groupIndex < groupCount; groupIndex++) {
+
+                final Object[] group = groups.getGroup(groupIndex);
+                risk.add(groupIndex, group);
+
+                if (!isPending(groupIndex, groupIndex)) continue;
+
+                try {
+
+                    for (int instanceIndex = 0; instanceIndex < group.length; instanceIndex++) {
+
+                        applyOnItself(group[ instanceIndex ], groupIndex, instanceIndex);
+                    }
+                } catch (RuntimeException ex) {
+
+                    failed(group, group, groupIndex, groupIndex, ex);
+                    throw ex;
+                } catch (Error ex) {
+
+                    failed(group, group, groupIndex, groupIndex, ex);
+                    throw ex;
+                }
+            }
+
+            for (int score = RiskProfile.MAX_SCORE; score >= 0; score--) {
+
+                for (int lhsGroupIndex = 0; lhsGroupIndex < groupCount; lhsGroupIndex++) {
+
+                    Object[] lhsGroup = null;
+
+                    for (int rhsGroupIndex = 0; rhsGroupIndex < groupCount; rhsGroupIndex++) {
+
+                        if (risk.score(lhsGroupIndex, rhsGroupIndex) != score) continue;
+                        if (!isPending(lhsGroupIndex, rhsGroupIndex)) continue;
+
+                        if (lhsGroup == null) lhsGroup = groups.getGroup(lhsGroupIndex);
+
+                        verify(lhsGroup, lhsGroupIndex, rhsGroupIndex, false);
+                    }
+                }
+            }
+        }
+
+        /**
+         * @return true if the tile belongs to the shard and was not verified yet
+         */
+        private boolean isPending(final int lhsGroupIndex, final int rhsGroupIndex) {
+
+            if (plan != null && !plan.includes(lhsGroupIndex, rhsGroupIndex)) return false;
+
+            return progress == null || !progress.isCompleted(tile(lhsGroupIndex, rhsGroupIndex));
+        }
+
+        /**
+         * Verify tiles that failed in the previous run so the known failure
+         * is reported before the rest of the tiles is verified.
+         */
+        private void verifyFailed() {
+
+            if (progress == null) return;
+
+            for (int lhsGroupIndex = 0; lhsGroupIndex < groupCount; lhsGroupIndex++) {
+
+                for (int rhsGroupIndex = 0; rhsGroupIndex < groupCount; rhsGroupIndex++) {
+
+                    if (!progress.isFailed(tile(lhsGroupIndex, rhsGroupIndex))) continue;
+                    if (!isPending(lhsGroupIndex, rhsGroupIndex)) continue;
+
+                    verify(groups.getGroup(lhsGroupIndex), lhsGroupIndex, rhsGroupIndex, true);
+                }
+            }
+        }
+
+        private long countCompleted() {
+
+            if (progress == null) return 0;
+
+            long completed = 0;
+            for (int lhsGroupIndex = 0; lhsGroupIndex < groupCount; lhsGroupIndex++) {
+
+                for (int rhsGroupIndex = 0; rhsGroupIndex < groupCount; rhsGroupIndex++) {
+
+                    if (plan != null && !plan.includes(lhsGroupIndex, rhsGroupIndex)) continue;
+
+                    if (progress.isCompleted(tile(lhsGroupIndex, rhsGroupIndex))) completed++;
+                }
+            }
+
+            return completed;
+        }
+
+        private void verify(
+                final Object[] lhsGroup,
+                final int lhsGroupIndex,
+                final int rhsGroupIndex,
+                final boolean applyOnItself
+        ) {
+
+            final Object[] rhsGroup = lhsGroupIndex == rhsGroupIndex
+                    ? lhsGroup
+                    : groups.getGroup(rhsGroupIndex)
+            ;
+
+            try {
+
+                applyOnTile(lhsGroup, rhsGroup, lhsGroupIndex, rhsGroupIndex, applyOnItself);
+            } catch (RuntimeException ex) {
+
+                failed(lhsGroup, rhsGroup, lhsGroupIndex, rhsGroupIndex, ex);
+                throw ex;
+            } catch (Error ex) {
+
+                failed(lhsGroup, rhsGroup, lhsGroupIndex, rhsGroupIndex, ex);
+                throw ex;
+            }
+
+            verifiedTiles++;
+            if (progress != null) progress.complete(tile(lhsGroupIndex, rhsGroupIndex));
+        }
+
+        /**
+         * Record the failure. Failure to record history is attached to the
+         * verification failure instead of replacing it.
+         */
+        private void failed(
+                final Object[] lhsGroup,
+                final Object[] rhsGroup,
+                final int lhsGroupIndex,
+                final int rhsGroupIndex,
+                final Throwable failure
+        ) {
+
+            failedLhsGroup = lhsGroup;
+            failedRhsGroup = rhsGroup;
+            failedLhsGroupIndex = lhsGroupIndex;
+            failedRhsGroupIndex = rhsGroupIndex;
+
+            if (progress != null) progress.fail(tile(lhsGroupIndex, rhsGroupIndex));
+
+            if (history == null) return;
+
+            try {
+
+                history.record(lhsGroup, rhsGroup);
+            } catch (RuntimeException ex) {
+
+                failure.addSuppressed(ex);
+            }
+        }
+
+        private long tile(final int lhsGroupIndex, final int rhsGroupIndex) {
+
+            return (long) lhsGroupIndex * groupCount + rhsGroupIndex;
+        }
+
+        private void close() {
+
+            if (progress != null) progress.close();
+
+            if (shardReport != null) new ShardReport(
+                    shardIndex,
+                    shardCount,
+                    fingerprint,
+                    (long) groupCount * groupCount,
+                    verifiedTiles,
+                    failures
+            ).write(shardReport);
+        }
+    }
+
+    /**
+     * Identify configuration and groups the progress file was recorded for.
+     *
+     * <p>Digest covers only data that is the same in every JVM: group
+     * sizes and class of every instance. Hash codes are left out as fixtures
+     * hashed by identity would never match progress or shard reports
+     * recorded by other JVM.</p>
+     */
+    private int fingerprint() {
+
+        int fingerprint = allowHashCodeCollision ? 1 : 0;
+        for (int groupIndex = 0; groupIndex < groups.getGroupCount(); groupIndex++) {
+
+            final Object[] group = groups.getGroup(groupIndex);
+            fingerprint = fingerprint * 31 + group.length;
+
+            for (final Object instance: group) {
+
+                fingerprint = fingerprint * 31 + instance.getClass().getName().hashCode();
+            }
+        }
+
+        return fingerprint;
+    }
+
+    private void applyOnTile(
+            final Object[] lhsGroup,
+            final Object[] rhsGroup,
+            final int lhsGroupIndex,
+            final int rhsGroupIndex,
+            final boolean applyOnItself
+    ) {
+
+        for (int instanceIndex = 0; instanceIndex < lhsGroup.length; instanceIndex++) {
+
+            final Object instance = lhsGroup[ instanceIndex ];
+
+            if (lhsGroupIndex == rhsGroupIndex) {
+
+                if (applyOnItself) applyOnItself(instance, lhsGroupIndex, instanceIndex);
+                applyOnGroup(instance, lhsGroup, lhsGroupIndex, instanceIndex);
+            } else {
+
+                proccessOtherGroup(
+                        instance,
+                        PREFIX + getIdentifier(lhsGroupIndex, instanceIndex),
+                        rhsGroup,
+                        rhsGroupIndex
+                );
+            }
+        }
+    }
+
     private void applyOnItself(
             final Object instance,
             final int groupIndex,
             final int instanceIndex
     ) {
 
+        if (specializer != null && specializer.isSound(instance)) return;
+
         final String format = String.format(
                 PREFIX + "%%s for %s.", getIdentifier(groupIndex, instanceIndex)
         );
@@ -247,6 +1011,7 @@ public final class EqualsHashCodeChecker {
 
     private void applyOnGroup(
             final Object lhs,
+            final Object[] group,
             final int groupIndex,
             final int lhsIndex
     ) {
@@ -255,7 +1020,14 @@ public final class EqualsHashCodeChecker {
                 PREFIX + getIdentifier(groupIndex, lhsIndex) + " %%s %s."
         ;
 
-        for (int rhsIndex = 0; rhsIndex < groups[groupIndex].length; rhsIndex++) {
+        for (int rhsIndex = 0; rhsIndex < group.length; rhsIndex++) {
+
+            // report only the violations specialized loop finds
+            if (specializer != null) {
+
+                rhsIndex = specializer.findViolationWithinGroup(lhs, group, rhsIndex, lhsIndex);
+                if (rhsIndex == group.length) break;
+            }
 
             // skip current instance
             if (lhsIndex == rhsIndex) continue;
@@ -264,39 +1036,31 @@ public final class EqualsHashCodeChecker {
                     formatFormat, getIdentifier(groupIndex, rhsIndex)
             );
 
-            assertWithinGroup(lhs, groups[groupIndex][ rhsIndex ], format);
+            assertWithinGroup(lhs, group[ rhsIndex ], format);
         }
     }
 
-    private void applyOnOtherGroups(
-            final Object lhs,
-            final int lhsGroupIndex,
-            final int lhsIndex
-    ) {
-
-       final String format = PREFIX + getIdentifier(lhsGroupIndex, lhsIndex);
-
-       for (int rhsGroupIndex = 0; rhsGroupIndex < this.groups.length; rhsGroupIndex++) {
-
-           // skip current group
-           if (rhsGroupIndex == lhsGroupIndex) continue;
-
-           proccessOtherGroup(lhs, format, rhsGroupIndex);
-       }
-    }
-
     private void proccessOtherGroup(
             final Object lhsInstance,
             final String formatPrefix,
+            final Object[] rhsGroup,
             final int rhsGroupIndex
     ) {
 
         final String formatFormat = formatPrefix + " %%s %s.";
 
-        final Object[] rhsGroup = this.groups[ rhsGroupIndex ];
-
         for (int rhsIndex = 0; rhsIndex < rhsGroup.length; rhsIndex++) {
 
+            // report only the violations specialized loop finds
+            if (specializer != null) {
+
+                rhsIndex = specializer.findViolationBetweenGroups(
+                        lhsInstance, rhsGroup, rhsIndex, allowHashCodeCollision
+                );
+
+                if (rhsIndex == rhsGroup.length) break;
+            }
+
             final String format = String.format(
                     formatFormat, getIdentifier(rhsGroupIndex, rhsIndex)
             );
@@ -312,11 +1076,11 @@ public final class EqualsHashCodeChecker {
 
     private void assertOnItself(final Object instance, final String format) {
 
-        asserter.checkEqualsReflexivity(instance, String.format(
+        checkingAsserter.checkEqualsReflexivity(instance, String.format(
                 format, "equals is reflexive"
         ) );
 
-        asserter.checkEqualsFailsForNull(instance, String.format(
+        checkingAsserter.checkEqualsFailsForNull(instance, String.format(
                 format, "equals yealds false for null"
         ) );
     }
@@ -325,11 +1089,11 @@ public final class EqualsHashCodeChecker {
             final Object lhs, final Object rhs, final String format
     ) {
 
-        asserter.checkEquals(lhs, rhs, String.format(
+        checkingAsserter.checkEquals(lhs, rhs, String.format(
                 format, "equals"
         ) );
 
-        asserter.checkHashCodeEquals(lhs, rhs, String.format(
+        checkingAsserter.checkHashCodeEquals(lhs, rhs, String.format(
                 format, "generates the same hashCode as"
         ) );
     }
@@ -338,13 +1102,13 @@ public final class EqualsHashCodeChecker {
             final Object lhs, final Object rhs, final String format
     ) {
 
-        asserter.checkDoesNotEqual(lhs, rhs, String.format(
+        checkingAsserter.checkDoesNotEqual(lhs, rhs, String.format(
                 format, "does not equal"
         ) );
 
         if (!allowHashCodeCollision) {
 
-            asserter.checkHashCodeDoesNotEqual(lhs, rhs, String.format(
+            checkingAsserter.checkHashCodeDoesNotEqual(lhs, rhs, String.format(
                     format, "generates different hashCode than"
             ) );
         }
@@ -0,0 +1,108 @@
+package objectcontract;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Names of classes whose instances failed verification in previous runs.
+ *
+ * <p>File lists one class name per line.</p>
+ *
+ * @author Oliver Gondža (ogondza@gmail.com)
+ */
+final class FailureHistory {
+
+    private static final String ENCODING = "UTF-8";
+
+    private final File file;
+    private final Set<String> classNames = new TreeSet<String>();
+
+    FailureHistory(final File file) {
+
+        this.file = file;
+
+        if (!file.exists()) return;
+
+        try {
+
+            final BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    new FileInputStream(file), ENCODING
+            ));
+
+            try {
+
+                for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+
+                    if (line.trim().length() != 0) classNames.add(line.trim());
+                }
+            } finally {
+
+                reader.close();
+            }
+        } catch (IOException ex) {
+
+            throw new IllegalStateException(
+                    "Unable to read failure history " + file, ex
+            );
+        }
+    }
+
+    /**
+     * @return true if instance of the group failed before
+     */
+    boolean contains(final Object[] group) {
+
+        for (final Object instance: group) {
+
+            if (classNames.contains(instance.getClass().getName())) return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Record classes of failed groups.
+     */
+    void record(final Object[]... failedGroups) {
+
+        for (final Object[] group: failedGroups) {
+
+            for (final Object instance: group) {
+
+                classNames.add(instance.getClass().getName());
+            }
+        }
+
+        try {
+
+            final Writer writer = new OutputStreamWriter(
+                    new FileOutputStream(file), ENCODING
+            );
+
+            try {
+
+                for (final String className: classNames) {
+
+                    writer.write(className);
+                    writer.write('\n');
+                }
+            } finally {
+
+                writer.close();
+            }
+        } catch (IOException ex) {
+
+            throw new IllegalStateException(
+                    "Unable to write failure history " + file, ex
+            );
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package objectcontract;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Reduction of failed tile to the smallest set of instances the failure
+ * reproduces with.
+ *
+ * <p>Every instance of the tile is verified alone first, then every pair of
+ * instances and finally every triple of instances that can break
+ * transitivity. Candidates are verified by a checker of their own and the
+ * first one that fails the same check as the original failure is reported
+ * together with a reproduction of its configuration. Candidates failing
+ * other checks or throwing exceptions do not reproduce the failure.</p>
+ *
+ * @author Oliver Gondža (ogondza@gmail.com)
+ */
+final class FailureShrinker {
+
+    private static final int MAX_ATTEMPTS = 100000;
+    private static final Pattern COORDINATES = Pattern.compile("\\[\\d+;\\d+\\]");
+
+    private final EqualsHashCodeAsserter asserter;
+    private final boolean allowHashCodeCollision;
+    private int attempts = 0;
+
+    FailureShrinker(final EqualsHashCodeAsserter asserter, final boolean allowHashCodeCollision) {
+
+        this.asserter = asserter;
+        this.allowHashCodeCollision = allowHashCodeCollision;
+    }
+
+    /**
+     * @return Failure of the smallest reproducing candidate or the original
+     * failure if none reproduces.
+     */
+    AssertionError shrink(
+            final AssertionError failure,
+            final Object[] lhsGroup,
+            final Object[] rhsGroup,
+            final int lhsGroupIndex,
+            final int rhsGroupIndex
+    ) {
+
+        final List<Instance> lhs = instances(lhsGroup, lhsGroupIndex);
+        final List<Instance> rhs = lhsGroupIndex == rhsGroupIndex
+                ? lhs
+                : instances(rhsGroup, rhsGroupIndex)
+        ;
+
+        final AssertionError shrunk = lhs == rhs
+                ? shrinkGroup(failure, lhs)
+                : shrinkGroups(failure, lhs, rhs)
+        ;
+
+        return shrunk == null ? failure : shrunk;
+    }
+
+    private List<Instance> instances(final Object[] group, final int groupIndex) {
+
+        final List<Instance> instances = new ArrayList<Instance>(group.length);
+        for (int instanceIndex = 0; instanceIndex < group.length; instanceIndex++) {
+
+            instances.add(new Instance(group[ instanceIndex ], groupIndex, instanceIndex));
+        }
+
+        return instances;
+    }
+
+    private AssertionError shrinkGroup(final AssertionError failure, final List<Instance> group) {
+
+        for (final Instance instance: group) {
+
+            final AssertionError shrunk = attempt(failure, group(instance));
+            if (shrunk != null) return shrunk;
+        }
+
+        for (int i = 0; i < group.size(); i++) {
+
+            for (int j = i + 1; j < group.size(); j++) {
+
+                final AssertionError shrunk = attempt(failure, group(group.get(i), group.get(j)));
+                if (shrunk != null) return shrunk;
+            }
+        }
+
+        for (int i = 0; i < group.size(); i++) {
+
+            for (int j = i + 1; j < group.size(); j++) {
+
+                for (int k = j + 1; k < group.size(); k++) {
+
+                    final AssertionError shrunk = attempt(
+                            failure, group(group.get(i), group.get(j), group.get(k))
+                    );
+                    if (shrunk != null) return shrunk;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    private AssertionError shrinkGroups(
+            final AssertionError failure, final List<Instance> lhs, final List<Instance> rhs
+    ) {
+
+        final List<Instance> all = new ArrayList<Instance>(lhs);
+        all.addAll(rhs);
+        for (final Instance instance: all) {
+
+            final AssertionError shrunk = attempt(failure, group(instance));
+            if (shrunk != null) return shrunk;
+        }
+
+        for (final Instance l: lhs) {
+
+            for (final Instance r: rhs) {
+
+                final AssertionError shrunk = attempt(failure, group(l), group(r));
+                if (shrunk != null) return shrunk;
+            }
+        }
+
+        for (int i = 0; i < lhs.size(); i++) {
+
+            for (final Instance r: rhs) {
+
+                for (int j = i + 1; j < lhs.size(); j++) {
+
+                    final AssertionError shrunk = attempt(failure, group(lhs.get(i), lhs.get(j)), group(r));
+                    if (shrunk != null) return shrunk;
+                }
+            }
+        }
+
+        for (final Instance l: lhs) {
+
+            for (int i = 0; i < rhs.size(); i++) {
+
+                for (int j = i + 1; j < rhs.size(); j++) {
+
+                    final AssertionError shrunk = attempt(failure, group(l), group(rhs.get(i), rhs.get(j)));
+                    if (shrunk != null) return shrunk;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    private Instance[] group(final Instance... instances) {
+
+        return instances;
+    }
+
+    /**
+     * @return Failure of the candidate or null if it passes or there were too many attempts.
+     */
+    private AssertionError attempt(final AssertionError failure, final Instance[]... candidate) {
+
+        if (attempts++ >= MAX_ATTEMPTS) return null;
+
+        final EqualsHashCodeChecker.Builder builder = EqualsHashCodeChecker.getBuilder(asserter);
+        if (allowHashCodeCollision) builder.allowHashCodeCollision();
+
+        for (final Instance[] group: candidate) {
+
+            final Object[] instances = new Object[ group.length ];
+            for (int i = 0; i < group.length; i++) {
+
+                instances[ i ] = group[ i ].instance;
+            }
+
+            builder.setGroup(instances);
+        }
+
+        try {
+
+            builder.getChecker().enforceInvariants();
+            return null;
+        } catch (RuntimeException ex) {
+
+            return null;
+        } catch (AssertionError ex) {
+
+            if (!kind(ex).equals(kind(failure))) return null;
+
+            final AssertionError shrunk = new AssertionError(describe(failure, ex, candidate));
+            shrunk.initCause(failure);
+            return shrunk;
+        }
+    }
+
+    /**
+     * @return Failure message without coordinates of the instances
+     */
+    private static String kind(final AssertionError failure) {
+
+        return COORDINATES.matcher(String.valueOf(failure.getMessage())).replaceAll("[]");
+    }
+
+    private String describe(
+            final AssertionError failure, final AssertionError shrunk, final Instance[]... candidate
+    ) {
+
+        final String separator = System.getProperty("line.separator");
+
+        int count = 0;
+        for (final Instance[] group: candidate) {
+
+            count += group.length;
+        }
+
+        final StringBuilder message = new StringBuilder();
+        message.append(failure.getMessage()).append(separator);
+        message.append("Reproduces with ").append(count)
+                .append(count == 1 ? " instance: " : " instances: ")
+                .append(shrunk.getMessage()).append(separator)
+        ;
+
+        message.append("EqualsHashCodeChecker.getBuilder(asserter)").append(separator);
+        if (allowHashCodeCollision) {
+
+            message.append("        .allowHashCodeCollision()").append(separator);
+        }
+
+        for (final Instance[] group: candidate) {
+
+            message.append("        .setGroup(");
+            for (int i = 0; i < group.length; i++) {
+
+                if (i != 0) message.append(", ");
+                message.append(group[ i ].name());
+            }
+
+            message.append(')').append(separator);
+        }
+
+        message.append("        .getChecker()").append(separator);
+        message.append("        .enforceInvariants()").append(separator);
+        message.append(';').append(separator);
+
+        message.append("where");
+        for (final Instance[] group: candidate) {
+
+            for (final Instance instance: group) {
+
+                message.append(separator).append("    ").append(instance.name())
+                        .append(" = ").append(instance.instance.getClass().getName())
+                        .append(' ').append(instance.instance)
+                ;
+            }
+        }
+
+        return message.toString();
+    }
+
+    private static final class Instance {
+
+        private final Object instance;
+        private final int groupIndex;
+        private final int instanceIndex;
+
+        private Instance(final Object instance, final int groupIndex, final int instanceIndex) {
+
+            this.instance = instance;
+            this.groupIndex = groupIndex;
+            this.instanceIndex = instanceIndex;
+        }
+
+        private String name() {
+
+            return "g" + groupIndex + "i" + instanceIndex;
+        }
+    }
+}
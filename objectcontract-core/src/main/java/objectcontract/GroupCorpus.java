@@ -0,0 +1,324 @@
+package objectcontract;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * File-backed source of equality groups.
+ *
+ * <p>Corpus is read through file channel group by group so only the groups
+ * the checker currently verifies are held in memory. Only the offsets and
+ * the sizes of the groups are indexed when the corpus is opened.</p>
+ *
+ * <p>File consists of a header followed by length-prefixed groups of
+ * length-prefixed encoded instances:</p>
+ *
+ * <pre>
+ * int magic, int version, int groupCount
+ * group: int groupLength, int instanceCount, instance...
+ * instance: int instanceLength, byte[instanceLength] data
+ * </pre>
+ *
+ * @author Oliver Gondža (ogondza@gmail.com)
+ * @see GroupCorpus.Writer
+ */
+public final class GroupCorpus implements GroupSource, Closeable {
+
+    private static final int MAGIC = 0x4f434743;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 3 * 4;
+    private static final int GROUP_HEADER_SIZE = 2 * 4;
+    // group header followed by length prefix of its only instance
+    private static final int MIN_GROUP_SIZE = GROUP_HEADER_SIZE + 4;
+
+    private final File file;
+    private final InstanceCodec codec;
+    private final FileChannel channel;
+    private final long[] offsets;
+    private final int[] lengths;
+    private final int[] sizes;
+
+    private GroupCorpus(final File file, final InstanceCodec codec) throws IOException {
+
+        this.file = file;
+        this.codec = codec;
+        this.channel = new RandomAccessFile(file, "r").getChannel();
+
+        boolean opened = false;
+        try {
+
+            final long size = channel.size();
+            final ByteBuffer header = size < HEADER_SIZE
+                    ? ByteBuffer.allocate(HEADER_SIZE)
+                    : read(0, HEADER_SIZE)
+            ;
+
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) throw new IllegalStateException(
+                    file + " is not a group corpus"
+            );
+
+            final int groupCount = header.getInt();
+            if (groupCount < 0 || groupCount > (size - HEADER_SIZE) / MIN_GROUP_SIZE) throw new IOException(
+                    "Corrupt corpus " + file + ": invalid group count " + groupCount + " for " + size + " bytes"
+            );
+
+            offsets = new long[ groupCount ];
+            lengths = new int[ groupCount ];
+            sizes = new int[ groupCount ];
+
+            long position = HEADER_SIZE;
+            for (int groupIndex = 0; groupIndex < groupCount; groupIndex++) {
+
+                final ByteBuffer groupHeader = read(position, GROUP_HEADER_SIZE);
+
+                lengths[ groupIndex ] = groupHeader.getInt();
+                sizes[ groupIndex ] = groupHeader.getInt();
+                offsets[ groupIndex ] = position + GROUP_HEADER_SIZE;
+
+                if (sizes[ groupIndex ] == 0) throw new IllegalStateException(
+                        "Group " + groupIndex + " is empty"
+                );
+
+                // group count followed by at least length prefix of every instance
+                final long minLength = 4 + 4L * sizes[ groupIndex ];
+                final long end = position + 4 + (long) lengths[ groupIndex ];
+                if (sizes[ groupIndex ] < 0 || lengths[ groupIndex ] < minLength || end > size) {
+
+                    throw new IOException(String.format(
+                            "Corrupt corpus %s: group %d declares length %d and %d instances",
+                            file, groupIndex, lengths[ groupIndex ], sizes[ groupIndex ]
+                    ));
+                }
+
+                position = end;
+            }
+
+            opened = true;
+        } finally {
+
+            if (!opened) channel.close();
+        }
+    }
+
+    /**
+     * Open group corpus.
+     *
+     * @param file Corpus file
+     * @param codec Codec to decode instances with
+     * @return Opened corpus
+     */
+    public static GroupCorpus open(final File file, final InstanceCodec codec) {
+
+        if (file == null) throw new NullPointerException("No file provided");
+        if (codec == null) throw new NullPointerException("No codec provided");
+
+        try {
+
+            return new GroupCorpus(file, codec);
+        } catch (IOException ex) {
+
+            throw new IllegalStateException("Unable to open corpus " + file, ex);
+        }
+    }
+
+    public int getGroupCount() {
+
+        return sizes.length;
+    }
+
+    public int getGroupSize(final int groupIndex) {
+
+        return sizes[ groupIndex ];
+    }
+
+    public Object[] getGroup(final int groupIndex) {
+
+        final ByteBuffer buffer;
+        try {
+
+            buffer = read(offsets[ groupIndex ], lengths[ groupIndex ] - 4);
+        } catch (IOException ex) {
+
+            throw new IllegalStateException(
+                    "Unable to read group " + groupIndex + " from " + file, ex
+            );
+        }
+
+        final Object[] group = new Object[ sizes[ groupIndex ] ];
+        for (int instanceIndex = 0; instanceIndex < group.length; instanceIndex++) {
+
+            final int length = buffer.remaining() < 4 ? -1 : buffer.getInt();
+            if (length < 0 || length > buffer.remaining()) throw new IllegalStateException(String.format(
+                    "Corrupt corpus %s: instance %d of group %d declares length %d with %d bytes remaining",
+                    file, instanceIndex, groupIndex, length, buffer.remaining()
+            ));
+
+            final byte[] data = new byte[ length ];
+            buffer.get(data);
+
+            group[ instanceIndex ] = codec.decode(data);
+        }
+
+        return EqualsHashCodeChecker.validateGroup(groupIndex, group).toArray();
+    }
+
+    /**
+     * Release the corpus file.
+     */
+    public void close() throws IOException {
+
+        channel.close();
+    }
+
+    private ByteBuffer read(final long position, final int length) throws IOException {
+
+        final ByteBuffer buffer = ByteBuffer.allocate(length);
+
+        while (buffer.hasRemaining()) {
+
+            final int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) throw new EOFException(
+                    "Unexpected end of corpus " + file
+            );
+        }
+
+        buffer.flip();
+        return buffer;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+
+        if (o == null || o.getClass() != this.getClass()) return false;
+
+        final GroupCorpus corpus = (GroupCorpus) o;
+
+        return file.equals(corpus.file) && codec.equals(corpus.codec);
+    }
+
+    @Override
+    public int hashCode() {
+
+        return file.hashCode() * 31 + codec.hashCode();
+    }
+
+    /**
+     * Writer of group corpus files.
+     *
+     * @author Oliver Gondža (ogondza@gmail.com)
+     */
+    public static final class Writer implements Closeable {
+
+        private static final int BUFFER_SIZE = 64 * 1024;
+
+        private final InstanceCodec codec;
+        private final FileChannel channel;
+        private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        private int groupCount = 0;
+
+        /**
+         * Create new corpus file.
+         *
+         * @param file File to write. Existing file is overwritten.
+         * @param codec Codec to encode instances with.
+         */
+        public Writer(final File file, final InstanceCodec codec) {
+
+            if (file == null) throw new NullPointerException("No file provided");
+            if (codec == null) throw new NullPointerException("No codec provided");
+
+            this.codec = codec;
+
+            try {
+
+                final RandomAccessFile raf = new RandomAccessFile(file, "rw");
+                raf.setLength(0);
+                this.channel = raf.getChannel();
+            } catch (IOException ex) {
+
+                throw new IllegalStateException("Unable to create corpus " + file, ex);
+            }
+
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(0);
+        }
+
+        /**
+         * Append equality group.
+         *
+         * @param group A group to append.
+         * @return this
+         */
+        public Writer addGroup(final Object... group) {
+
+            EqualsHashCodeChecker.validateGroup(groupCount, group);
+
+            final byte[][] encoded = new byte[ group.length ][];
+            int length = 4;
+            for (int i = 0; i < group.length; i++) {
+
+                encoded[ i ] = codec.encode(group[ i ]);
+                length += 4 + encoded[ i ].length;
+            }
+
+            ensureCapacity(4 + length);
+            buffer.putInt(length).putInt(group.length);
+            for (final byte[] data: encoded) {
+
+                buffer.putInt(data.length).put(data);
+            }
+
+            groupCount++;
+            return this;
+        }
+
+        /**
+         * Write pending groups and close the file.
+         */
+        public void close() throws IOException {
+
+            try {
+
+                flush();
+                channel.write(ByteBuffer.allocate(4).putInt(0, groupCount), 8);
+            } finally {
+
+                channel.close();
+            }
+        }
+
+        private void ensureCapacity(final int length) {
+
+            if (buffer.remaining() >= length) return;
+
+            flush();
+
+            if (buffer.capacity() < length) {
+
+                buffer = ByteBuffer.allocate(length);
+            }
+        }
+
+        private void flush() {
+
+            buffer.flip();
+
+            try {
+
+                while (buffer.hasRemaining()) {
+
+                    channel.write(buffer);
+                }
+            } catch (IOException ex) {
+
+                throw new IllegalStateException("Unable to write corpus", ex);
+            }
+
+            buffer.clear();
+        }
+    }
+}
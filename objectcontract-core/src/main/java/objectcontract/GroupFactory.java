@@ -0,0 +1,19 @@
+package objectcontract;
+
+/**
+ * Factory creating equality groups.
+ *
+ * <p>Used where groups have to be recreated independently of the checker,
+ * like in different JVM or different class loader. Implementation has to
+ * provide public constructor without arguments and create the same groups
+ * every time.</p>
+ *
+ * @author Oliver Gondža (ogondza@gmail.com)
+ */
+public interface GroupFactory {
+
+    /**
+     * @return Equality groups
+     */
+    Object[][] getGroups();
+}
@@ -0,0 +1,31 @@
+package objectcontract;
+
+/**
+ * Source of equality groups.
+ *
+ * <p>Groups are loaded by the checker as needed so the source does not have to
+ * keep all of them in memory. Every group has to be nonempty and consist of
+ * distinct instances different from <code>null</code>.</p>
+ *
+ * @author Oliver Gondža (ogondza@gmail.com)
+ * @see EqualsHashCodeChecker.Builder#setGroupSource(GroupSource)
+ */
+public interface GroupSource {
+
+    /**
+     * @return Number of groups
+     */
+    int getGroupCount();
+
+    /**
+     * @param groupIndex Index of the group
+     * @return Number of instances in the group
+     */
+    int getGroupSize(final int groupIndex);
+
+    /**
+     * @param groupIndex Index of the group
+     * @return Instances of the group
+     */
+    Object[] getGroup(final int groupIndex);
+}
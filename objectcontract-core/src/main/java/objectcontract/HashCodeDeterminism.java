@@ -0,0 +1,310 @@
+package objectcontract;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Comparison of hash codes with hash codes computed by forked JVM.
+ *
+ * <p>Forked JVM is started with the same classpath. It either deserializes
+ * the groups or recreates them using {@link GroupFactory} and writes hash
+ * codes of all the instances to a file compared with hash codes of the
+ * current JVM afterwards. Forked JVM that does not finish in
+ * {@value #TIMEOUT_SECONDS} seconds is killed. Its output is captured and
+ * reported when it fails.</p>
+ *
+ * @author Oliver Gondža (ogondza@gmail.com)
+ */
+final class HashCodeDeterminism {
+
+    private static final String SERIALIZED = "serialized";
+    private static final String FACTORY = "factory";
+
+    static final long TIMEOUT_SECONDS = 300;
+    // tail of forked JVM output to report
+    private static final int MAX_OUTPUT = 8 * 1024;
+
+    private HashCodeDeterminism() {}
+
+    /**
+     * Compare hash codes of the groups with hash codes computed by forked JVM.
+     *
+     * @param groups Groups to examine
+     * @param factory Factory to recreate the groups in forked JVM or
+     * <code>null</code> to serialize them.
+     */
+    static void enforce(
+            final GroupSource groups,
+            final Class<? extends GroupFactory> factory
+    ) {
+
+        enforce(groups, factory, TIMEOUT_SECONDS);
+    }
+
+    static void enforce(
+            final GroupSource groups,
+            final Class<? extends GroupFactory> factory,
+            final long timeoutSeconds
+    ) {
+
+        File input = null;
+        File output = null;
+        File log = null;
+
+        try {
+
+            output = File.createTempFile("objectcontract", ".hashcodes");
+            log = File.createTempFile("objectcontract", ".log");
+
+            final List<String> command = new ArrayList<String>();
+            command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+            command.add("-cp");
+            command.add(System.getProperty("java.class.path"));
+            command.add(HashCodeDeterminism.class.getName());
+            command.add(output.getPath());
+
+            if (factory == null) {
+
+                input = File.createTempFile("objectcontract", ".groups");
+                serialize(groups, input);
+
+                command.add(SERIALIZED);
+                command.add(input.getPath());
+            } else {
+
+                command.add(FACTORY);
+                command.add(factory.getName());
+            }
+
+            final Process process = new ProcessBuilder(command)
+                    .redirectErrorStream(true)
+                    .redirectOutput(log)
+                    .start()
+            ;
+
+            try {
+
+                if (!process.waitFor(timeoutSeconds, TimeUnit.SECONDS)) throw new IllegalStateException(
+                        "Forked JVM did not finish in " + timeoutSeconds + " seconds:" + readTail(log)
+                );
+            } finally {
+
+                // Interrupted or timed out
+                process.destroyForcibly();
+            }
+
+            final int exitCode = process.exitValue();
+            if (exitCode != 0) throw new IllegalStateException(
+                    "Forked JVM failed with exit code " + exitCode + ":" + readTail(log)
+            );
+
+            compare(groups, output);
+        } catch (IOException ex) {
+
+            throw new IllegalStateException("Unable to fork JVM", ex);
+        } catch (InterruptedException ex) {
+
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for forked JVM", ex);
+        } finally {
+
+            if (input != null) input.delete();
+            if (output != null) output.delete();
+            if (log != null) log.delete();
+        }
+    }
+
+    /**
+     * @return Last {@value #MAX_OUTPUT} bytes of forked JVM output on a new line
+     */
+    private static String readTail(final File log) throws IOException {
+
+        final RandomAccessFile raf = new RandomAccessFile(log, "r");
+        try {
+
+            final long length = raf.length();
+            final byte[] tail = new byte[ (int) Math.min(length, MAX_OUTPUT) ];
+            raf.seek(length - tail.length);
+            raf.readFully(tail);
+
+            return System.getProperty("line.separator")
+                    + (tail.length < length ? "..." : "")
+                    + new String(tail).trim()
+            ;
+        } finally {
+
+            raf.close();
+        }
+    }
+
+    private static void serialize(final GroupSource groups, final File file) {
+
+        try {
+
+            writeSerialized(groups, file);
+        } catch (IOException ex) {
+
+            throw new IllegalStateException("Unable to serialize groups", ex);
+        }
+    }
+
+    private static void writeSerialized(final GroupSource groups, final File file) throws IOException {
+
+        final ObjectOutputStream out = new ObjectOutputStream(
+                new BufferedOutputStream(new FileOutputStream(file))
+        );
+
+        try {
+
+            out.writeInt(groups.getGroupCount());
+            for (int groupIndex = 0; groupIndex < groups.getGroupCount(); groupIndex++) {
+
+                final Object[] group = groups.getGroup(groupIndex);
+
+                out.writeInt(group.length);
+                for (final Object instance: group) {
+
+                    out.writeObject(instance);
+                }
+
+                // Do not keep references to instances of processed groups
+                out.reset();
+            }
+        } finally {
+
+            out.close();
+        }
+    }
+
+    private static void compare(final GroupSource groups, final File file) throws IOException {
+
+        final DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file))
+        );
+
+        final StringBuilder failures = new StringBuilder();
+        final String separator = System.getProperty("line.separator");
+
+        try {
+
+            if (in.readInt() != groups.getGroupCount()) throw mismatch();
+
+            for (int groupIndex = 0; groupIndex < groups.getGroupCount(); groupIndex++) {
+
+                if (in.readInt() != groups.getGroupSize(groupIndex)) throw mismatch();
+
+                final Object[] group = groups.getGroup(groupIndex);
+                for (int instanceIndex = 0; instanceIndex < group.length; instanceIndex++) {
+
+                    final int local = group[ instanceIndex ].hashCode();
+                    final int forked = in.readInt();
+
+                    if (local == forked) continue;
+
+                    if (failures.length() != 0) failures.append(separator);
+
+                    failures.append(String.format(
+                            "Failed asserting that [%s;%s] generates the same hashCode in forked JVM (%s != %s).",
+                            groupIndex, instanceIndex, local, forked
+                    ));
+                }
+            }
+        } finally {
+
+            in.close();
+        }
+
+        if (failures.length() != 0) throw new AssertionError(failures.toString());
+    }
+
+    private static IllegalStateException mismatch() {
+
+        return new IllegalStateException(
+                "Groups created by forked JVM do not match checker groups"
+        );
+    }
+
+    /**
+     * Entry point of forked JVM.
+     *
+     * @param args Output file, mode and either serialized groups or factory class name
+     */
+    public static void main(final String[] args) throws Exception {
+
+        final DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(args[ 0 ]))
+        );
+
+        try {
+
+            if (SERIALIZED.equals(args[ 1 ])) {
+
+                writeDeserialized(new File(args[ 2 ]), out);
+            } else if (FACTORY.equals(args[ 1 ])) {
+
+                final GroupFactory factory = (GroupFactory) Class.forName(args[ 2 ])
+                        .getDeclaredConstructor()
+                        .newInstance()
+                ;
+                final Object[][] groups = factory.getGroups();
+
+                out.writeInt(groups.length);
+                for (final Object[] group: groups) {
+
+                    out.writeInt(group.length);
+                    for (final Object instance: group) {
+
+                        out.writeInt(instance.hashCode());
+                    }
+                }
+            } else {
+
+                throw new IllegalArgumentException("Unknown mode " + args[ 1 ]);
+            }
+        } finally {
+
+            out.close();
+        }
+    }
+
+    private static void writeDeserialized(
+            final File file, final DataOutputStream out
+    ) throws IOException, ClassNotFoundException {
+
+        final ObjectInputStream in = new ObjectInputStream(
+                new BufferedInputStream(new FileInputStream(file))
+        );
+
+        try {
+
+            final int groupCount = in.readInt();
+            out.writeInt(groupCount);
+
+            for (int groupIndex = 0; groupIndex < groupCount; groupIndex++) {
+
+                final int groupSize = in.readInt();
+                out.writeInt(groupSize);
+
+                for (int instanceIndex = 0; instanceIndex < groupSize; instanceIndex++) {
+
+                    out.writeInt(in.readObject().hashCode());
+                }
+            }
+        } finally {
+
+            in.close();
+        }
+    }
+}
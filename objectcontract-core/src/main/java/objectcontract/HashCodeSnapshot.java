@@ -0,0 +1,353 @@
+package objectcontract;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Golden file of hash codes of all the instances.
+ *
+ * <p>File consists of a header, fixed size records of all the instances in
+ * group order and a table of class names the records refer to:</p>
+ *
+ * <pre>
+ * int magic, int version, int recordCount, long classTableOffset
+ * record: int group, int index, int classId, int hashCode
+ * class table: int classCount, (int length, byte[length] utf8Name)...
+ * </pre>
+ *
+ * <p>Snapshot is compared through memory mapping while the groups are
+ * loaded one at a time. Records are sorted by group and index so they are
+ * matched with the instances by the coordinates, not by position.</p>
+ *
+ * @author Oliver Gondža (ogondza@gmail.com)
+ */
+final class HashCodeSnapshot {
+
+    private static final int MAGIC = 0x4f434853;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 3 * 4 + 8;
+    private static final int RECORD_SIZE = 4 * 4;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_REPORTED = 100;
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private HashCodeSnapshot() {}
+
+    /**
+     * Compare hash codes with the golden file.
+     *
+     * @param groups Groups to examine
+     * @param golden Golden file.
+     * @param update Write the golden file instead of comparing.
+     */
+    static void enforce(final GroupSource groups, final File golden, final boolean update) {
+
+        if (!update && !golden.exists()) throw new IllegalStateException(String.format(
+                "Snapshot %s does not exist, set system property %s=true to record it",
+                golden, EqualsHashCodeChecker.SNAPSHOT_UPDATE_PROPERTY
+        ));
+
+        try {
+
+            if (update) {
+
+                write(groups, golden);
+            } else {
+
+                compare(groups, golden);
+            }
+        } catch (IOException ex) {
+
+            throw new IllegalStateException("Unable to process snapshot " + golden, ex);
+        }
+    }
+
+    private static void write(final GroupSource groups, final File golden) throws IOException {
+
+        final RandomAccessFile raf = new RandomAccessFile(golden, "rw");
+        raf.setLength(0);
+        final FileChannel channel = raf.getChannel();
+
+        try {
+
+            final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            final Map<Class<?>, Integer> classIds = new HashMap<Class<?>, Integer>();
+            final List<Class<?>> classes = new ArrayList<Class<?>>();
+            int recordCount = 0;
+
+            buffer.position(HEADER_SIZE);
+            for (int groupIndex = 0; groupIndex < groups.getGroupCount(); groupIndex++) {
+
+                final Object[] group = groups.getGroup(groupIndex);
+                for (int instanceIndex = 0; instanceIndex < group.length; instanceIndex++) {
+
+                    final Class<?> type = group[ instanceIndex ].getClass();
+                    Integer classId = classIds.get(type);
+                    if (classId == null) {
+
+                        classId = classes.size();
+                        classIds.put(type, classId);
+                        classes.add(type);
+                    }
+
+                    if (buffer.remaining() < RECORD_SIZE) flush(buffer, channel);
+
+                    buffer.putInt(groupIndex)
+                            .putInt(instanceIndex)
+                            .putInt(classId)
+                            .putInt(group[ instanceIndex ].hashCode())
+                    ;
+                    recordCount++;
+                }
+            }
+
+            flush(buffer, channel);
+            final long classTableOffset = channel.position();
+
+            buffer.putInt(classes.size());
+            for (final Class<?> type: classes) {
+
+                final byte[] name = type.getName().getBytes(UTF8);
+                if (buffer.remaining() < 4 + name.length) flush(buffer, channel);
+
+                buffer.putInt(name.length).put(name);
+            }
+
+            flush(buffer, channel);
+
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(recordCount).putLong(classTableOffset);
+            buffer.flip();
+            channel.write(buffer, 0);
+        } finally {
+
+            raf.close();
+        }
+    }
+
+    private static void flush(final ByteBuffer buffer, final FileChannel channel) throws IOException {
+
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+
+            channel.write(buffer);
+        }
+
+        buffer.clear();
+    }
+
+    private static void compare(final GroupSource groups, final File golden) throws IOException {
+
+        final RandomAccessFile raf = new RandomAccessFile(golden, "r");
+        final MappedByteBuffer snapshot;
+
+        try {
+
+            if (raf.length() > Integer.MAX_VALUE || raf.length() < HEADER_SIZE) {
+
+                throw new IllegalStateException(golden + " is not a hashCode snapshot");
+            }
+
+            snapshot = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+        } finally {
+
+            raf.close();
+        }
+
+        if (snapshot.getInt(0) != MAGIC || snapshot.getInt(4) != VERSION) {
+
+            throw new IllegalStateException(golden + " is not a hashCode snapshot");
+        }
+
+        final int recordCount = snapshot.getInt(8);
+        final long classTableOffset = snapshot.getLong(12);
+
+        // class table follows the records
+        if (recordCount < 0
+                || classTableOffset != HEADER_SIZE + (long) recordCount * RECORD_SIZE
+                || classTableOffset > snapshot.capacity() - 4
+        ) {
+
+            throw corrupted(golden, String.format(
+                    "%s records and class table at %s do not fit %s bytes",
+                    recordCount, classTableOffset, snapshot.capacity()
+            ));
+        }
+
+        final String[] classNames = readClassTable(golden, snapshot, (int) classTableOffset);
+
+        final List<String> failures = new ArrayList<String>();
+        int failureCount = 0;
+        int record = 0;
+        long previousKey = -1;
+
+        for (int groupIndex = 0; groupIndex < groups.getGroupCount(); groupIndex++) {
+
+            final Object[] group = groups.getGroup(groupIndex);
+            for (int instanceIndex = 0; instanceIndex < group.length; instanceIndex++) {
+
+                final long key = key(groupIndex, instanceIndex);
+
+                // records preceding the instance have no counterpart in groups
+                for (; record < recordCount && recordKey(snapshot, record) < key; record++) {
+
+                    previousKey = checkOrder(golden, snapshot, record, previousKey);
+                    if (failureCount++ < MAX_REPORTED) failures.add(missingInGroups(snapshot, record));
+                }
+
+                final String failure;
+                if (record < recordCount && recordKey(snapshot, record) == key) {
+
+                    previousKey = checkOrder(golden, snapshot, record, previousKey);
+                    failure = compare(
+                            golden, snapshot, record++, classNames, group[ instanceIndex ], groupIndex, instanceIndex
+                    );
+                } else {
+
+                    failure = String.format("[%s;%s] is missing in snapshot", groupIndex, instanceIndex);
+                }
+
+                if (failure == null) continue;
+
+                if (failureCount++ < MAX_REPORTED) failures.add(failure);
+            }
+        }
+
+        for (; record < recordCount; record++) {
+
+            previousKey = checkOrder(golden, snapshot, record, previousKey);
+            if (failureCount++ < MAX_REPORTED) failures.add(missingInGroups(snapshot, record));
+        }
+
+        if (failureCount == 0) return;
+
+        final StringBuilder message = new StringBuilder(String.format(
+                "Failed asserting that hash codes match snapshot %s (%s differences):",
+                golden, failureCount
+        ));
+
+        final String separator = System.getProperty("line.separator");
+        for (final String failure: failures) {
+
+            message.append(separator).append(failure);
+        }
+
+        if (failureCount > failures.size()) {
+
+            message.append(separator).append("...");
+        }
+
+        throw new AssertionError(message.toString());
+    }
+
+    private static String compare(
+            final File golden,
+            final ByteBuffer snapshot,
+            final int record,
+            final String[] classNames,
+            final Object instance,
+            final int groupIndex,
+            final int instanceIndex
+    ) {
+
+        final int offset = HEADER_SIZE + record * RECORD_SIZE;
+
+        final int classId = snapshot.getInt(offset + 8);
+        if (classId < 0 || classId >= classNames.length) throw corrupted(golden, String.format(
+                "record %s refers to class %s of %s", record, classId, classNames.length
+        ));
+
+        final String className = classNames[ classId ];
+        if (!className.equals(instance.getClass().getName())) {
+
+            return String.format(
+                    "[%s;%s] class changed from %s to %s",
+                    groupIndex, instanceIndex, className, instance.getClass().getName()
+            );
+        }
+
+        final int hashCode = instance.hashCode();
+        if (snapshot.getInt(offset + 12) != hashCode) {
+
+            return String.format(
+                    "[%s;%s] hashCode changed from %s to %s",
+                    groupIndex, instanceIndex, snapshot.getInt(offset + 12), hashCode
+            );
+        }
+
+        return null;
+    }
+
+    private static long key(final int groupIndex, final int instanceIndex) {
+
+        return (long) groupIndex << 32 | instanceIndex & 0xffffffffL;
+    }
+
+    private static long recordKey(final ByteBuffer snapshot, final int record) {
+
+        final int offset = HEADER_SIZE + record * RECORD_SIZE;
+        return key(snapshot.getInt(offset), snapshot.getInt(offset + 4));
+    }
+
+    /**
+     * @return Key of the record
+     */
+    private static long checkOrder(
+            final File golden, final ByteBuffer snapshot, final int record, final long previousKey
+    ) {
+
+        final long key = recordKey(snapshot, record);
+        if (key <= previousKey) throw corrupted(golden, "records are not sorted by group and index");
+
+        return key;
+    }
+
+    private static String missingInGroups(final ByteBuffer snapshot, final int record) {
+
+        final int offset = HEADER_SIZE + record * RECORD_SIZE;
+        return String.format(
+                "[%s;%s] is missing in groups",
+                snapshot.getInt(offset), snapshot.getInt(offset + 4)
+        );
+    }
+
+    private static String[] readClassTable(final File golden, final ByteBuffer snapshot, final int offset) {
+
+        final ByteBuffer table = snapshot.duplicate();
+        table.position(offset);
+
+        // every class name is prefixed by its length
+        final int classCount = table.getInt();
+        if (classCount < 0 || classCount > table.remaining() / 4) throw corrupted(golden, String.format(
+                "class table of %s classes does not fit %s bytes", classCount, table.remaining()
+        ));
+
+        final String[] classNames = new String[ classCount ];
+        for (int i = 0; i < classNames.length; i++) {
+
+            final int length = table.remaining() < 4 ? -1 : table.getInt();
+            if (length < 0 || length > table.remaining()) throw corrupted(golden, String.format(
+                    "name of class %s declares length %s with %s bytes remaining", i, length, table.remaining()
+            ));
+
+            final byte[] name = new byte[ length ];
+            table.get(name);
+            classNames[ i ] = new String(name, UTF8);
+        }
+
+        return classNames;
+    }
+
+    private static IllegalStateException corrupted(final File golden, final String reason) {
+
+        return new IllegalStateException(golden + " is corrupted, " + reason);
+    }
+}
@@ -0,0 +1,309 @@
+package objectcontract;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Search for unequal instances sharing the same hashCode or the same bucket
+ * of <code>HashMap</code>.
+ *
+ * <p>Search starts with birthday attack over random instances of the input
+ * space. The first collision of unequal instances determines the target
+ * hashCode or bucket. Further instances are then found by hill-climbing
+ * from random instances towards the target, accepting neighbours whose hash
+ * differs from the target in the same or smaller number of bits. Once the
+ * target is reached, the search walks among colliding neighbours. Colliding
+ * instances are verified to be unequal by {@link EqualsHashCodeChecker}.</p>
+ *
+ * <pre>
+ * HashFloodingSearch.Result result = new HashFloodingSearch(asserter, new KeyInputSpace())
+ *         .maxAttempts(1000000)
+ *         .search(1000)
+ * ;
+ * </pre>
+ *
+ * @author Oliver Gondža (ogondza@gmail.com)
+ */
+public final class HashFloodingSearch {
+
+    private static final int BIRTHDAY_SIZE = 1 << 18;
+    private static final int MAX_STEPS = 256;
+
+    private final EqualsHashCodeAsserter asserter;
+    private final InputSpace inputSpace;
+    private int tableSize = 0;
+    private long maxAttempts = 1000000;
+    private long seed = 0;
+
+    /**
+     * @param asserter Asserter to verify the colliding instances with
+     * @param inputSpace Input space to search
+     */
+    public HashFloodingSearch(final EqualsHashCodeAsserter asserter, final InputSpace inputSpace) {
+
+        if (asserter == null) throw new NullPointerException("No asserter provided");
+        if (inputSpace == null) throw new NullPointerException("No input space provided");
+
+        this.asserter = asserter;
+        this.inputSpace = inputSpace;
+    }
+
+    /**
+     * Search for instances sharing the same bucket of <code>HashMap</code>
+     * instead of the same hashCode.
+     *
+     * @param tableSize Number of buckets. Power of two.
+     * @return this
+     */
+    public HashFloodingSearch targetBucket(final int tableSize) {
+
+        if (tableSize < 1 || Integer.bitCount(tableSize) != 1) throw new IllegalStateException(
+                "Table size has to be a power of two: " + tableSize
+        );
+
+        this.tableSize = tableSize;
+        return this;
+    }
+
+    /**
+     * @param maxAttempts Maximal number of instances to create
+     * @return this
+     */
+    public HashFloodingSearch maxAttempts(final long maxAttempts) {
+
+        if (maxAttempts < 1) throw new IllegalStateException(
+                "Invalid number of attempts " + maxAttempts
+        );
+
+        this.maxAttempts = maxAttempts;
+        return this;
+    }
+
+    /**
+     * @param seed Seed of the random generator passed to the input space
+     * @return this
+     */
+    public HashFloodingSearch seed(final long seed) {
+
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * Search for colliding instances.
+     *
+     * @param count Number of unequal colliding instances to search for
+     * @return Outcome of the search
+     */
+    public Result search(final int count) {
+
+        if (count < 2) throw new IllegalStateException(
+                "At least 2 colliding instances has to be searched for"
+        );
+
+        final Random random = new Random(seed);
+        final long start = System.nanoTime();
+        long attempts = 0;
+
+        final List<Object> found = new ArrayList<Object>();
+        int target = 0;
+
+        // birthday attack
+        final Map<Integer, Object> seen = new HashMap<Integer, Object>();
+        final long birthdayAttempts = Math.min(maxAttempts / 2 + 1, BIRTHDAY_SIZE);
+        while (found.isEmpty() && attempts < birthdayAttempts) {
+
+            final Object instance = inputSpace.create(random);
+            attempts++;
+
+            final int key = key(instance);
+            final Object other = seen.get(key);
+
+            if (other == null) {
+
+                seen.put(key, instance);
+            } else if (!other.equals(instance) && !instance.equals(other)) {
+
+                target = key;
+                found.add(other);
+                found.add(instance);
+            }
+        }
+
+        if (found.isEmpty()) {
+
+            // No collision, aim at an arbitrary instance
+            final Object instance = seen.values().iterator().next();
+            target = key(instance);
+            found.add(instance);
+        }
+
+        seen.clear();
+
+        // hill-climbing
+        while (found.size() < count && attempts < maxAttempts) {
+
+            Object current = inputSpace.create(random);
+            attempts++;
+
+            int distance = distance(current, target);
+            if (distance == 0 && isUnequal(current, found)) found.add(current);
+
+            for (int step = 0; step < MAX_STEPS && found.size() < count && attempts < maxAttempts; step++) {
+
+                final Object candidate = inputSpace.mutate(current, random);
+                attempts++;
+
+                final int candidateDistance = distance(candidate, target);
+                if (candidateDistance > distance) continue;
+
+                current = candidate;
+                distance = candidateDistance;
+
+                // Keep walking among colliding neighbours while it finds new instances
+                if (distance == 0 && isUnequal(current, found)) {
+
+                    found.add(current);
+                    step = 0;
+                }
+            }
+        }
+
+        final long elapsed = System.nanoTime() - start;
+
+        if (found.size() > 1) verify(found);
+
+        return new Result(found, count, target, tableSize, attempts, elapsed);
+    }
+
+    private int key(final Object instance) {
+
+        final int hashCode = instance.hashCode();
+
+        if (tableSize == 0) return hashCode;
+
+        // Bucket index used by HashMap
+        return (hashCode ^ (hashCode >>> 16)) & (tableSize - 1);
+    }
+
+    private int distance(final Object instance, final int target) {
+
+        return Integer.bitCount(key(instance) ^ target);
+    }
+
+    private boolean isUnequal(final Object instance, final List<Object> found) {
+
+        for (final Object other: found) {
+
+            if (other.equals(instance) || instance.equals(other)) return false;
+        }
+
+        return true;
+    }
+
+    private void verify(final List<Object> found) {
+
+        final EqualsHashCodeChecker.Builder builder = EqualsHashCodeChecker
+                .getBuilder(asserter)
+                .allowHashCodeCollision()
+        ;
+
+        for (final Object instance: found) {
+
+            builder.setGroup(instance);
+        }
+
+        builder.getChecker().enforceInvariants();
+    }
+
+    /**
+     * Outcome of the search.
+     *
+     * @author Oliver Gondža (ogondza@gmail.com)
+     */
+    public static final class Result {
+
+        private final List<Object> instances;
+        private final int requested;
+        private final int target;
+        private final int tableSize;
+        private final long attempts;
+        private final long elapsedNanos;
+
+        private Result(
+                final List<Object> instances,
+                final int requested,
+                final int target,
+                final int tableSize,
+                final long attempts,
+                final long elapsedNanos
+        ) {
+
+            this.instances = Collections.unmodifiableList(instances);
+            this.requested = requested;
+            this.target = target;
+            this.tableSize = tableSize;
+            this.attempts = attempts;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * @return Unequal instances sharing the target hashCode or bucket
+         */
+        public List<Object> getInstances() {
+
+            return instances;
+        }
+
+        /**
+         * @return true if requested number of instances was found
+         */
+        public boolean isComplete() {
+
+            return instances.size() >= requested;
+        }
+
+        /**
+         * @return HashCode or bucket shared by the instances
+         */
+        public int getTarget() {
+
+            return target;
+        }
+
+        /**
+         * @return Number of instances created by the search
+         */
+        public long getAttempts() {
+
+            return attempts;
+        }
+
+        /**
+         * @return Duration of the search excluding the verification
+         */
+        public long getElapsedNanos() {
+
+            return elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+
+            final String shared = tableSize == 0
+                    ? "hashCode " + target
+                    : "bucket " + target + " of " + tableSize
+            ;
+
+            return String.format(
+                    "Found %s of %s unequal instances sharing %s in %s attempts (%s attempts per instance, %s ms)",
+                    instances.size(), requested, shared, attempts,
+                    attempts / Math.max(1, instances.size()), elapsedNanos / 1000000
+            );
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package objectcontract;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * Reflective estimate of heap retained by object graphs.
+ *
+ * <p>Sizes assume 64-bit JVM with compressed references, 12 bytes object
+ * header, 16 bytes array header and 8 bytes alignment. Strings are assumed
+ * to be compact. Objects reachable from several roots are counted once.
+ * Classes are not traversed.</p>
+ *
+ * <p>Platform classes that refuse reflective access are sized by rules:
+ * collections and maps are traversed through their API and their internal
+ * storage is approximated by array, linked, tree or hash table layout,
+ * <code>BigInteger</code> and <code>BigDecimal</code> by their magnitude.
+ * Other such objects are counted by their shallow size and their types are
+ * reported as incomplete.</p>
+ *
+ * @author Oliver Gondža (ogondza@gmail.com)
+ */
+final class HeapSizeEstimator {
+
+    private static final int HEADER = 12;
+    private static final int ARRAY_HEADER = 16;
+    private static final int REFERENCE = 4;
+
+    // Node of linked list with item, next and previous reference
+    private static final int LINKED_NODE = 24;
+    // Node of red-black tree with key, value, three links and color
+    private static final int TREE_NODE = 40;
+    // Node of hash table with hash, key, value and next reference
+    private static final int HASH_NODE = 32;
+
+    private final Map<Class<?>, Layout> layouts = new HashMap<Class<?>, Layout>();
+    private final Map<Object, Object> visited = new IdentityHashMap<Object, Object>();
+    private final Set<String> incompleteTypes = new TreeSet<String>();
+
+    /**
+     * Add the graph of the root to the estimate.
+     *
+     * @return Bytes of the objects not counted so far
+     */
+    long add(final Object root) {
+
+        long size = 0;
+        final List<Object> pending = new ArrayList<Object>();
+        pending.add(root);
+
+        while (!pending.isEmpty()) {
+
+            final Object object = pending.remove(pending.size() - 1);
+            if (object == null || object instanceof Class || visited.put(object, object) != null) continue;
+
+            size += size(object, pending);
+        }
+
+        return size;
+    }
+
+    /**
+     * @return Names of types whose state could not be traversed so the estimate does not include it
+     */
+    Set<String> getIncompleteTypes() {
+
+        return Collections.unmodifiableSet(incompleteTypes);
+    }
+
+    private long size(final Object object, final List<Object> pending) {
+
+        final Class<?> type = object.getClass();
+
+        if (type == String.class) return stringSize((String) object);
+
+        if (type.isArray()) {
+
+            final Class<?> component = type.getComponentType();
+            final int length = Array.getLength(object);
+
+            if (!component.isPrimitive()) {
+
+                for (int i = 0; i < length; i++) {
+
+                    pending.add(Array.get(object, i));
+                }
+            }
+
+            return align(ARRAY_HEADER + (long) length * fieldSize(component));
+        }
+
+        final Layout layout = getLayout(type);
+        for (final Field field: layout.references) {
+
+            try {
+
+                pending.add(field.get(object));
+            } catch (IllegalAccessException ex) {
+
+                throw new IllegalStateException("Unable to read " + field, ex);
+            }
+        }
+
+        if (layout.complete) return layout.size;
+
+        if (object instanceof Collection) return layout.size + collectionSize((Collection<?>) object, pending);
+        if (object instanceof Map) return layout.size + mapSize((Map<?, ?>) object, pending);
+        if (object instanceof BigInteger) return layout.size + magnitudeSize((BigInteger) object);
+        if (object instanceof BigDecimal) {
+
+            final BigInteger unscaled = ((BigDecimal) object).unscaledValue();
+            // Unscaled values that fit into long are inflated lazily
+            return unscaled.bitLength() < 64
+                    ? layout.size
+                    : layout.size + getLayout(BigInteger.class).size + magnitudeSize(unscaled)
+            ;
+        }
+
+        incompleteTypes.add(type.getName());
+        return layout.size;
+    }
+
+    private long collectionSize(final Collection<?> collection, final List<Object> pending) {
+
+        pending.addAll(collection);
+
+        final int size = collection.size();
+        if (collection instanceof SortedSet) return (long) size * TREE_NODE;
+        if (collection instanceof Set) return hashTableSize(size);
+        if (collection instanceof RandomAccess) return align(ARRAY_HEADER + (long) size * REFERENCE);
+
+        return (long) size * LINKED_NODE;
+    }
+
+    private long mapSize(final Map<?, ?> map, final List<Object> pending) {
+
+        for (final Map.Entry<?, ?> entry: map.entrySet()) {
+
+            pending.add(entry.getKey());
+            pending.add(entry.getValue());
+        }
+
+        final int size = map.size();
+        if (map instanceof SortedMap) return (long) size * TREE_NODE;
+
+        return hashTableSize(size);
+    }
+
+    private long hashTableSize(final int size) {
+
+        // Power of two buckets for default load factor
+        long buckets = 1;
+        while (buckets * 3 < size * 4L) {
+
+            buckets <<= 1;
+        }
+
+        return align(ARRAY_HEADER + buckets * REFERENCE) + (long) size * HASH_NODE;
+    }
+
+    private long magnitudeSize(final BigInteger value) {
+
+        return align(ARRAY_HEADER + (value.abs().bitLength() + 31) / 32 * 4L);
+    }
+
+    private long stringSize(final String string) {
+
+        boolean latin1 = true;
+        for (int i = 0; i < string.length() && latin1; i++) {
+
+            latin1 = string.charAt(i) < 256;
+        }
+
+        // String instance and its byte array
+        return align(HEADER + 4 + 1 + 1 + REFERENCE)
+                + align(ARRAY_HEADER + (long) string.length() * (latin1 ? 1 : 2))
+        ;
+    }
+
+    private Layout getLayout(final Class<?> type) {
+
+        Layout layout = layouts.get(type);
+        if (layout != null) return layout;
+
+        long size = HEADER;
+        final List<Field> references = new ArrayList<Field>();
+        boolean complete = true;
+
+        for (Class<?> declaring = type; declaring != null; declaring = declaring.getSuperclass()) {
+
+            for (final Field field: declaring.getDeclaredFields()) {
+
+                if (Modifier.isStatic(field.getModifiers())) continue;
+
+                size += fieldSize(field.getType());
+
+                if (field.getType().isPrimitive()) continue;
+
+                try {
+
+                    field.setAccessible(true);
+                    references.add(field);
+                } catch (RuntimeException ex) {
+
+                    // Platform class not open for reflection
+                    complete = false;
+                }
+            }
+        }
+
+        layout = new Layout(align(size), references.toArray(new Field[ references.size() ]), complete);
+        layouts.put(type, layout);
+        return layout;
+    }
+
+    private static int fieldSize(final Class<?> type) {
+
+        if (type == long.class || type == double.class) return 8;
+        if (type == int.class || type == float.class) return 4;
+        if (type == short.class || type == char.class) return 2;
+        if (type == byte.class || type == boolean.class) return 1;
+
+        return REFERENCE;
+    }
+
+    static long align(final long size) {
+
+        return (size + 7) & ~7L;
+    }
+
+    private static final class Layout {
+
+        private final long size;
+        private final Field[] references;
+        // All the references are traversed
+        private final boolean complete;
+
+        private Layout(final long size, final Field[] references, final boolean complete) {
+
+            this.size = size;
+            this.references = references;
+            this.complete = complete;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package objectcontract;
+
+import java.util.Random;
+
+/**
+ * Factory of instances over the input space of a class.
+ *
+ * <p>Used by {@link HashFloodingSearch} to explore the instances attacker
+ * can construct. Implementation should only use provided random generator
+ * so searches are reproducible.</p>
+ *
+ * @author Oliver Gondža (ogondza@gmail.com)
+ */
+public interface InputSpace {
+
+    /**
+     * @param random Source of randomness
+     * @return Random instance of the input space
+     */
+    Object create(final Random random);
+
+    /**
+     * Create a neighbour of the instance.
+     *
+     * <p>Neighbour should differ in a small part of the input, a single
+     * character or a single digit for instance.</p>
+     *
+     * @param instance Instance previously created by this input space
+     * @param random Source of randomness
+     * @return Slightly modified instance
+     */
+    Object mutate(final Object instance, final Random random);
+}
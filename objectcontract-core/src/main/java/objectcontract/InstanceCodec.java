@@ -0,0 +1,26 @@
+package objectcontract;
+
+/**
+ * Conversion of instances to and from the bytes stored in {@link GroupCorpus}.
+ *
+ * @author Oliver Gondža (ogondza@gmail.com)
+ * @see SerializationCodec
+ */
+public interface InstanceCodec {
+
+    /**
+     * @param instance An instance to encode
+     * @return Encoded instance
+     */
+    byte[] encode(final Object instance);
+
+    /**
+     * Decode the instance.
+     *
+     * <p>Every invocation has to produce a distinct instance.</p>
+     *
+     * @param data Encoded instance
+     * @return Decoded instance
+     */
+    Object decode(final byte[] data);
+}
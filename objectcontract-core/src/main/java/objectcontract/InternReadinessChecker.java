@@ -0,0 +1,397 @@
+package objectcontract;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Check whether instances can be canonicalized through concurrent intern
+ * pool.
+ *
+ * <p>Several threads intern all the instances of the checker groups into
+ * a pool backed by <code>ConcurrentHashMap</code>, every thread in different
+ * order. Every instance of a group has to resolve to the same canonical
+ * instance that belongs to the group. Instances resolving to canonical
+ * instance of other group are reported as merged. All the groups are held
+ * in memory during the check.</p>
+ *
+ * <p>Report estimates heap retained by the copies of canonical instances
+ * that interning makes collectable, reduced by the footprint of the
+ * pool. Types whose state the estimate could not traverse are listed in
+ * the report.</p>
+ *
+ * <pre>
+ * InternReadinessChecker.Report report = new InternReadinessChecker(checker).threads(8).enforceInternability();
+ * </pre>
+ *
+ * @author Oliver Gondža (ogondza@gmail.com)
+ * @see HeapSizeEstimator
+ */
+public final class InternReadinessChecker {
+
+    private static final int MAX_REPORTED = 100;
+
+    private static final int SPLIT = 1;
+    private static final int MERGED = 2;
+
+    // ConcurrentHashMap node with hash, key, value and next reference
+    private static final int POOL_ENTRY = 32;
+
+    private final GroupSource groups;
+    private int threads = 4;
+
+    /**
+     * @param checker Checker with the equality groups
+     */
+    public InternReadinessChecker(final EqualsHashCodeChecker checker) {
+
+        if (checker == null) throw new NullPointerException("No checker provided");
+
+        this.groups = checker.getGroupSource();
+    }
+
+    /**
+     * @param threads Number of threads interning concurrently
+     * @return this
+     */
+    public InternReadinessChecker threads(final int threads) {
+
+        if (threads < 1) throw new IllegalStateException(
+                "Argument threads has to be at least 1: " + threads
+        );
+
+        this.threads = threads;
+        return this;
+    }
+
+    /**
+     * Enforce that every group interns into single canonical instance of its own.
+     *
+     * @return Estimate of the savings
+     */
+    public Report enforceInternability() {
+
+        final Object[][] instances = new Object[ groups.getGroupCount() ][];
+        final int[] offsets = new int[ instances.length ];
+        final Map<Object, Integer> owners = new IdentityHashMap<Object, Integer>();
+
+        int instanceCount = 0;
+        for (int groupIndex = 0; groupIndex < instances.length; groupIndex++) {
+
+            instances[ groupIndex ] = groups.getGroup(groupIndex);
+            offsets[ groupIndex ] = instanceCount;
+            instanceCount += instances[ groupIndex ].length;
+
+            for (final Object instance: instances[ groupIndex ]) {
+
+                owners.put(instance, groupIndex);
+            }
+        }
+
+        final ConcurrentHashMap<Object, Object> pool = new ConcurrentHashMap<Object, Object>();
+        final AtomicReferenceArray<Object> canonical = new AtomicReferenceArray<Object>(instances.length);
+        final AtomicIntegerArray violations = new AtomicIntegerArray(instanceCount);
+
+        intern(instances, offsets, owners, pool, canonical, violations);
+
+        final List<String> failures = new ArrayList<String>();
+        int failureCount = 0;
+
+        for (int groupIndex = 0; groupIndex < instances.length; groupIndex++) {
+
+            for (int instanceIndex = 0; instanceIndex < instances[ groupIndex ].length; instanceIndex++) {
+
+                final int flags = violations.get(offsets[ groupIndex ] + instanceIndex);
+                final Object resolved = pool.get(instances[ groupIndex ][ instanceIndex ]);
+                final Integer owner = resolved == null ? null : owners.get(resolved);
+
+                if ((flags & MERGED) != 0 || (owner != null && owner != groupIndex)) {
+
+                    if (failureCount++ < MAX_REPORTED) failures.add(String.format(
+                            "[%s;%s] merges with group %s", groupIndex, instanceIndex, owner
+                    ));
+                } else if ((flags & SPLIT) != 0 || resolved != canonical.get(groupIndex)) {
+
+                    if (failureCount++ < MAX_REPORTED) failures.add(String.format(
+                            "[%s;%s] resolves to different canonical instance than the rest of group %s",
+                            groupIndex, instanceIndex, groupIndex
+                    ));
+                }
+            }
+        }
+
+        if (failureCount != 0) {
+
+            final StringBuilder message = new StringBuilder(String.format(
+                    "Failed asserting that groups can be interned (%s violations):", failureCount
+            ));
+
+            final String separator = System.getProperty("line.separator");
+            for (final String failure: failures) {
+
+                message.append(separator).append(failure);
+            }
+
+            if (failureCount > failures.size()) {
+
+                message.append(separator).append("...");
+            }
+
+            throw new AssertionError(message.toString());
+        }
+
+        return estimate(instances, instanceCount, canonical);
+    }
+
+    private void intern(
+            final Object[][] instances,
+            final int[] offsets,
+            final Map<Object, Integer> owners,
+            final ConcurrentHashMap<Object, Object> pool,
+            final AtomicReferenceArray<Object> canonical,
+            final AtomicIntegerArray violations
+    ) {
+
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+        final List<Thread> workers = new ArrayList<Thread>(threads);
+
+        for (int thread = 0; thread < threads; thread++) {
+
+            final int shift = thread;
+            workers.add(new Thread("objectcontract interning " + thread) {
+                @Override
+                public void run() {
+
+                    try {
+
+                        start.await();
+
+                        // stop once any worker failed
+                        for (int g = 0; g < instances.length && error.get() == null && !isInterrupted(); g++) {
+
+                            // every thread starts at different group and instance
+                            final int groupIndex = (int) ((g + (long) shift * instances.length / threads) % instances.length);
+                            final Object[] group = instances[ groupIndex ];
+
+                            for (int i = 0; i < group.length; i++) {
+
+                                final int instanceIndex = (i + shift) % group.length;
+                                final Object instance = group[ instanceIndex ];
+
+                                final Object existing = pool.putIfAbsent(instance, instance);
+                                final Object resolved = existing == null ? instance : existing;
+
+                                final int violation;
+                                if (owners.get(resolved) != groupIndex) {
+
+                                    violation = MERGED;
+                                } else if (!canonical.compareAndSet(groupIndex, null, resolved)
+                                        && canonical.get(groupIndex) != resolved
+                                ) {
+
+                                    violation = SPLIT;
+                                } else {
+
+                                    continue;
+                                }
+
+                                final int index = offsets[ groupIndex ] + instanceIndex;
+                                int flags;
+                                do {
+
+                                    flags = violations.get(index);
+                                } while (!violations.compareAndSet(index, flags, flags | violation));
+                            }
+                        }
+                    } catch (Throwable ex) {
+
+                        error.compareAndSet(null, ex);
+                    }
+                }
+            });
+        }
+
+        for (final Thread worker: workers) {
+
+            worker.start();
+        }
+
+        start.countDown();
+
+        try {
+
+            for (final Thread worker: workers) {
+
+                worker.join();
+            }
+        } catch (InterruptedException ex) {
+
+            for (final Thread worker: workers) {
+
+                worker.interrupt();
+            }
+
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for interning threads", ex);
+        }
+
+        final Throwable ex = error.get();
+        if (ex instanceof RuntimeException) throw (RuntimeException) ex;
+        if (ex instanceof Error) throw (Error) ex;
+        if (ex != null) throw new IllegalStateException("Interning failed", ex);
+    }
+
+    private Report estimate(
+            final Object[][] instances,
+            final int instanceCount,
+            final AtomicReferenceArray<Object> canonical
+    ) {
+
+        final HeapSizeEstimator canonicalEstimator = new HeapSizeEstimator();
+        long canonicalBytes = 0;
+        for (int groupIndex = 0; groupIndex < instances.length; groupIndex++) {
+
+            canonicalBytes += canonicalEstimator.add(canonical.get(groupIndex));
+        }
+
+        final HeapSizeEstimator copiesEstimator = new HeapSizeEstimator();
+        long allBytes = 0;
+        for (final Object[] group: instances) {
+
+            for (final Object instance: group) {
+
+                allBytes += copiesEstimator.add(instance);
+            }
+        }
+
+        long tableSize = 1;
+        while (tableSize * 3 < instances.length * 4L) {
+
+            tableSize <<= 1;
+        }
+
+        final long poolBytes = (long) instances.length * POOL_ENTRY
+                + HeapSizeEstimator.align(16 + tableSize * 4)
+        ;
+
+        final Set<String> incompleteTypes = new TreeSet<String>(copiesEstimator.getIncompleteTypes());
+        incompleteTypes.addAll(canonicalEstimator.getIncompleteTypes());
+
+        return new Report(
+                instanceCount, instances.length, allBytes, canonicalBytes, poolBytes,
+                Collections.unmodifiableSet(incompleteTypes)
+        );
+    }
+
+    /**
+     * Estimate of heap saved by interning.
+     *
+     * @author Oliver Gondža (ogondza@gmail.com)
+     */
+    public static final class Report {
+
+        private final int instances;
+        private final int canonicalInstances;
+        private final long bytes;
+        private final long canonicalBytes;
+        private final long poolBytes;
+        private final Set<String> incompleteTypes;
+
+        private Report(
+                final int instances,
+                final int canonicalInstances,
+                final long bytes,
+                final long canonicalBytes,
+                final long poolBytes,
+                final Set<String> incompleteTypes
+        ) {
+
+            this.instances = instances;
+            this.canonicalInstances = canonicalInstances;
+            this.bytes = bytes;
+            this.canonicalBytes = canonicalBytes;
+            this.poolBytes = poolBytes;
+            this.incompleteTypes = incompleteTypes;
+        }
+
+        /**
+         * @return Number of all the instances
+         */
+        public int getInstances() {
+
+            return instances;
+        }
+
+        /**
+         * @return Number of instances left after interning
+         */
+        public int getCanonicalInstances() {
+
+            return canonicalInstances;
+        }
+
+        /**
+         * @return Estimated heap retained by all the instances
+         */
+        public long getBytes() {
+
+            return bytes;
+        }
+
+        /**
+         * @return Estimated heap retained by canonical instances
+         */
+        public long getCanonicalBytes() {
+
+            return canonicalBytes;
+        }
+
+        /**
+         * @return Estimated footprint of the intern pool
+         */
+        public long getPoolBytes() {
+
+            return poolBytes;
+        }
+
+        /**
+         * @return Estimated heap saved by interning, negative if interning costs more than it saves
+         */
+        public long getSavedBytes() {
+
+            return bytes - canonicalBytes - poolBytes;
+        }
+
+        /**
+         * @return Names of types whose state the estimate could not traverse, empty if the estimate is complete
+         */
+        public Set<String> getIncompleteTypes() {
+
+            return incompleteTypes;
+        }
+
+        @Override
+        public String toString() {
+
+            final String report = String.format(
+                    "Interning %s instances into %s saves %s bytes (%s bytes of instances, %s bytes canonical, %s bytes pool)",
+                    instances, canonicalInstances, getSavedBytes(), bytes, canonicalBytes, poolBytes
+            );
+
+            return incompleteTypes.isEmpty()
+                    ? report
+                    : report + ", state of " + incompleteTypes + " not estimated"
+            ;
+        }
+    }
+}
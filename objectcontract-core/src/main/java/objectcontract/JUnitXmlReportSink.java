@@ -0,0 +1,99 @@
+package objectcontract;
+
+import java.io.File;
+
+/**
+ * Report sink writing every check as a JUnit XML test case.
+ *
+ * <p>Test cases are written as the checks are performed. Counts of the test
+ * suite are written to the fixed width placeholders of the header once the
+ * sink is closed. Placeholders are wide enough for any <code>long</code>
+ * count.</p>
+ *
+ * <p>Checker stops at the first failed check, so a single verification
+ * reports at most one failure.</p>
+ *
+ * @author Oliver Gondža (ogondza@gmail.com)
+ */
+public final class JUnitXmlReportSink extends ChannelReportSink {
+
+    private static final String HEADER = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<testsuite name=\"%s\" tests=\"%019d\" failures=\"%019d\">\n"
+    ;
+
+    private final String suiteName;
+    private long tests = 0;
+    private long failures = 0;
+
+    /**
+     * @param file File to write the report to. Existing content is discarded.
+     * @param suiteName Name of the test suite.
+     */
+    public JUnitXmlReportSink(final File file, final String suiteName) {
+
+        super(file);
+
+        if (suiteName == null) throw new NullPointerException(
+                "No suite name provided"
+        );
+
+        this.suiteName = escape(suiteName);
+        write(header());
+    }
+
+    public void passed(final String check, final String subject) {
+
+        tests++;
+        write(String.format(
+                "  <testcase classname=\"%s\" name=\"%s\"/>\n",
+                escape(check), escape(subject)
+        ));
+    }
+
+    public void failed(final String check, final String subject, final String message) {
+
+        tests++;
+        failures++;
+        write(String.format(
+                "  <testcase classname=\"%s\" name=\"%s\"><failure message=\"%s\"/></testcase>\n",
+                escape(check), escape(subject), escape(message)
+        ));
+    }
+
+    @Override
+    void finish() {
+
+        write("</testsuite>\n");
+        overwrite(0, header());
+    }
+
+    private String header() {
+
+        return String.format(HEADER, suiteName, tests, failures);
+    }
+
+    private static String escape(final String value) {
+
+        if (value == null) return "";
+
+        final StringBuilder escaped = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+
+            final char c = value.charAt(i);
+            switch (c) {
+                case '<': escaped.append("&lt;"); break;
+                case '>': escaped.append("&gt;"); break;
+                case '&': escaped.append("&amp;"); break;
+                case '"': escaped.append("&quot;"); break;
+                case '\n': escaped.append("&#10;"); break;
+                case '\r': escaped.append("&#13;"); break;
+                case '\t': escaped.append("&#9;"); break;
+                default:
+                    // Not representable in XML 1.0
+                    if (c >= 0x20) escaped.append(c);
+            }
+        }
+
+        return escaped.toString();
+    }
+}
@@ -0,0 +1,68 @@
+package objectcontract;
+
+import java.io.File;
+
+/**
+ * Report sink writing every check as a single line JSON object.
+ *
+ * <pre>
+ * {"check":"checkEquals","status":"passed","subject":"[0;0] equals [0;1]"}
+ * {"check":"checkDoesNotEqual","status":"failed","subject":"[0;0] does not equal [1;0]","message":"..."}
+ * </pre>
+ *
+ * @author Oliver Gondža (ogondza@gmail.com)
+ */
+public final class JsonLinesReportSink extends ChannelReportSink {
+
+    /**
+     * @param file File to write the report to. Existing content is discarded.
+     */
+    public JsonLinesReportSink(final File file) {
+
+        super(file);
+    }
+
+    public void passed(final String check, final String subject) {
+
+        write(String.format(
+                "{\"check\":\"%s\",\"status\":\"passed\",\"subject\":\"%s\"}\n",
+                escape(check), escape(subject)
+        ));
+    }
+
+    public void failed(final String check, final String subject, final String message) {
+
+        write(String.format(
+                "{\"check\":\"%s\",\"status\":\"failed\",\"subject\":\"%s\",\"message\":\"%s\"}\n",
+                escape(check), escape(subject), escape(message)
+        ));
+    }
+
+    private static String escape(final String value) {
+
+        if (value == null) return "";
+
+        final StringBuilder escaped = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+
+            final char c = value.charAt(i);
+            switch (c) {
+                case '"': escaped.append("\\\""); break;
+                case '\\': escaped.append("\\\\"); break;
+                case '\n': escaped.append("\\n"); break;
+                case '\r': escaped.append("\\r"); break;
+                case '\t': escaped.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+
+                        escaped.append(String.format("\\u%04x", (int) c));
+                    } else {
+
+                        escaped.append(c);
+                    }
+            }
+        }
+
+        return escaped.toString();
+    }
+}
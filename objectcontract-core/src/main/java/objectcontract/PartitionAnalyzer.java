@@ -0,0 +1,458 @@
+package objectcontract;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Analysis of key distribution among nodes partitioned by hashCode.
+ *
+ * <p>Keys are assigned to nodes either by <code>hashCode() % N</code> or by
+ * consistent hash ring with virtual nodes. Ring positions of both keys and
+ * virtual nodes are derived by mixing the bits of their hashCode or index.
+ * For every configured number of nodes the analyzer reports ratio of the
+ * maximal to the mean load and standard deviation of the loads. Fraction of
+ * keys that move to different node is reported for every change of the
+ * number of nodes in the order the numbers were configured.</p>
+ *
+ * <p>Every equality group of the checker contributes single key as equal
+ * instances are supposed to share the hashCode.</p>
+ *
+ * <pre>
+ * new PartitionAnalyzer(checker).nodes(8, 9, 16).skewBound(1.5).analyze();
+ * </pre>
+ *
+ * @author Oliver Gondža (ogondza@gmail.com)
+ */
+public final class PartitionAnalyzer {
+
+    /**
+     * Assignment of keys to nodes.
+     */
+    public enum Strategy {
+
+        /**
+         * <code>hashCode() % N</code>
+         */
+        MODULO,
+
+        /**
+         * Consistent hash ring
+         */
+        RING
+    }
+
+    private final int[] hashCodes;
+    private int[] nodes = null;
+    private int virtualNodes = 100;
+    private double skewBound = 0;
+
+    /**
+     * Analyze equality groups of the checker.
+     *
+     * @param checker Checker with the groups
+     */
+    public PartitionAnalyzer(final EqualsHashCodeChecker checker) {
+
+        if (checker == null) throw new NullPointerException("No checker provided");
+
+        final GroupSource groups = checker.getGroupSource();
+        this.hashCodes = new int[ groups.getGroupCount() ];
+        for (int groupIndex = 0; groupIndex < hashCodes.length; groupIndex++) {
+
+            hashCodes[ groupIndex ] = groups.getGroup(groupIndex)[ 0 ].hashCode();
+        }
+    }
+
+    /**
+     * Analyze population of unequal keys.
+     *
+     * @param population Keys to analyze
+     */
+    public PartitionAnalyzer(final Object... population) {
+
+        if (population.length == 0) throw new IllegalStateException("No keys provided");
+
+        this.hashCodes = new int[ population.length ];
+        for (int i = 0; i < population.length; i++) {
+
+            if (population[ i ] == null) throw new IllegalStateException(
+                    "Null key provided at " + i
+            );
+
+            hashCodes[ i ] = population[ i ].hashCode();
+        }
+    }
+
+    /**
+     * @param nodes Numbers of nodes to analyze
+     * @return this
+     */
+    public PartitionAnalyzer nodes(final int... nodes) {
+
+        if (nodes.length == 0) throw new IllegalStateException("No node counts provided");
+
+        for (final int count: nodes) {
+
+            if (count < 1) throw new IllegalStateException("Invalid node count " + count);
+        }
+
+        this.nodes = nodes.clone();
+        return this;
+    }
+
+    /**
+     * @param virtualNodes Number of ring positions of every node
+     * @return this
+     */
+    public PartitionAnalyzer virtualNodes(final int virtualNodes) {
+
+        if (virtualNodes < 1) throw new IllegalStateException(
+                "Invalid virtual node count " + virtualNodes
+        );
+
+        this.virtualNodes = virtualNodes;
+        return this;
+    }
+
+    /**
+     * Fail analysis when maximal load exceeds the mean load more than given
+     * ratio for any strategy and number of nodes.
+     *
+     * @param maxToMean Maximal tolerated ratio of the maximal to the mean load
+     * @return this
+     */
+    public PartitionAnalyzer skewBound(final double maxToMean) {
+
+        if (maxToMean < 1) throw new IllegalStateException(
+                "Invalid skew bound " + maxToMean
+        );
+
+        this.skewBound = maxToMean;
+        return this;
+    }
+
+    /**
+     * @return Report of the analysis
+     */
+    public Report analyze() {
+
+        if (nodes == null) throw new IllegalStateException("No node counts provided");
+
+        final List<Distribution> distributions = new ArrayList<Distribution>();
+        final List<Movement> movements = new ArrayList<Movement>();
+
+        for (final Strategy strategy: Strategy.values()) {
+
+            int[] previous = null;
+            for (int i = 0; i < nodes.length; i++) {
+
+                final int[] assignment = assign(strategy, nodes[ i ]);
+                distributions.add(new Distribution(strategy, nodes[ i ], assignment));
+
+                if (previous != null) movements.add(
+                        new Movement(strategy, nodes[ i - 1 ], nodes[ i ], previous, assignment)
+                );
+
+                previous = assignment;
+            }
+        }
+
+        final Report report = new Report(distributions, movements);
+
+        if (skewBound == 0) return report;
+
+        final StringBuilder failures = new StringBuilder();
+        final String separator = System.getProperty("line.separator");
+        for (final Distribution distribution: distributions) {
+
+            if (distribution.maxToMean <= skewBound) continue;
+
+            if (failures.length() != 0) failures.append(separator);
+
+            failures.append(String.format(
+                    Locale.ROOT,
+                    "Failed asserting that keys are balanced among %s nodes by %s (max/mean %.2f > %.2f).",
+                    distribution.nodes, distribution.strategy.name().toLowerCase(Locale.ROOT),
+                    distribution.maxToMean, skewBound
+            ));
+        }
+
+        if (failures.length() != 0) throw new AssertionError(
+                failures.append(separator).append(report).toString()
+        );
+
+        return report;
+    }
+
+    /**
+     * @return Node of every key
+     */
+    private int[] assign(final Strategy strategy, final int nodeCount) {
+
+        final int[] assignment = new int[ hashCodes.length ];
+
+        if (strategy == Strategy.MODULO) {
+
+            for (int i = 0; i < hashCodes.length; i++) {
+
+                assignment[ i ] = (hashCodes[ i ] % nodeCount + nodeCount) % nodeCount;
+            }
+
+            return assignment;
+        }
+
+        // Ring positions in the high half, owning node in the low half
+        final long[] ring = new long[ nodeCount * virtualNodes ];
+        for (int node = 0; node < nodeCount; node++) {
+
+            for (int virtual = 0; virtual < virtualNodes; virtual++) {
+
+                final int index = node * virtualNodes + virtual;
+                ring[ index ] = ((long) mix(index) << 32) | node;
+            }
+        }
+
+        Arrays.sort(ring);
+
+        final int[] positions = new int[ ring.length ];
+        for (int i = 0; i < ring.length; i++) {
+
+            positions[ i ] = (int) (ring[ i ] >> 32);
+        }
+
+        for (int i = 0; i < hashCodes.length; i++) {
+
+            int index = Arrays.binarySearch(positions, mix(hashCodes[ i ]));
+            if (index < 0) index = -index - 1;
+            if (index == positions.length) index = 0;
+
+            assignment[ i ] = (int) ring[ index ];
+        }
+
+        return assignment;
+    }
+
+    /**
+     * Finalization step of MurmurHash3.
+     */
+    private static int mix(int value) {
+
+        value ^= value >>> 16;
+        value *= 0x85ebca6b;
+        value ^= value >>> 13;
+        value *= 0xc2b2ae35;
+        value ^= value >>> 16;
+        return value;
+    }
+
+    /**
+     * Outcome of the analysis.
+     *
+     * @author Oliver Gondža (ogondza@gmail.com)
+     */
+    public static final class Report {
+
+        private final List<Distribution> distributions;
+        private final List<Movement> movements;
+
+        private Report(final List<Distribution> distributions, final List<Movement> movements) {
+
+            this.distributions = Collections.unmodifiableList(distributions);
+            this.movements = Collections.unmodifiableList(movements);
+        }
+
+        /**
+         * @return Distributions for every strategy and number of nodes
+         */
+        public List<Distribution> getDistributions() {
+
+            return distributions;
+        }
+
+        /**
+         * @return Key movements for every strategy and change of number of nodes
+         */
+        public List<Movement> getMovements() {
+
+            return movements;
+        }
+
+        /**
+         * @return Distribution of the keys
+         */
+        public Distribution getDistribution(final Strategy strategy, final int nodes) {
+
+            for (final Distribution distribution: distributions) {
+
+                if (distribution.strategy == strategy && distribution.nodes == nodes) return distribution;
+            }
+
+            throw new IllegalStateException(
+                    "No distribution of " + strategy + " for " + nodes + " nodes"
+            );
+        }
+
+        @Override
+        public String toString() {
+
+            final StringBuilder report = new StringBuilder();
+            final String separator = System.getProperty("line.separator");
+
+            for (final Distribution distribution: distributions) {
+
+                if (report.length() != 0) report.append(separator);
+                report.append(distribution);
+            }
+
+            for (final Movement movement: movements) {
+
+                report.append(separator).append(movement);
+            }
+
+            return report.toString();
+        }
+    }
+
+    /**
+     * Load of nodes.
+     *
+     * @author Oliver Gondža (ogondza@gmail.com)
+     */
+    public static final class Distribution {
+
+        private final Strategy strategy;
+        private final int nodes;
+        private final double maxToMean;
+        private final double standardDeviation;
+
+        private Distribution(final Strategy strategy, final int nodes, final int[] assignment) {
+
+            this.strategy = strategy;
+            this.nodes = nodes;
+
+            final long[] loads = new long[ nodes ];
+            for (final int node: assignment) {
+
+                loads[ node ]++;
+            }
+
+            final double mean = (double) assignment.length / nodes;
+            long max = 0;
+            double squares = 0;
+            for (final long load: loads) {
+
+                max = Math.max(max, load);
+                squares += (load - mean) * (load - mean);
+            }
+
+            this.maxToMean = max / mean;
+            this.standardDeviation = Math.sqrt(squares / nodes);
+        }
+
+        public Strategy getStrategy() {
+
+            return strategy;
+        }
+
+        public int getNodes() {
+
+            return nodes;
+        }
+
+        /**
+         * @return Ratio of the maximal to the mean load
+         */
+        public double getMaxToMean() {
+
+            return maxToMean;
+        }
+
+        /**
+         * @return Standard deviation of the number of keys per node
+         */
+        public double getStandardDeviation() {
+
+            return standardDeviation;
+        }
+
+        @Override
+        public String toString() {
+
+            return String.format(
+                    Locale.ROOT,
+                    "%s %s nodes: max/mean %.2f, stddev %.2f",
+                    strategy.name().toLowerCase(Locale.ROOT), nodes, maxToMean, standardDeviation
+            );
+        }
+    }
+
+    /**
+     * Keys assigned to different node when the number of nodes changes.
+     *
+     * @author Oliver Gondža (ogondza@gmail.com)
+     */
+    public static final class Movement {
+
+        private final Strategy strategy;
+        private final int fromNodes;
+        private final int toNodes;
+        private final double movedFraction;
+
+        private Movement(
+                final Strategy strategy,
+                final int fromNodes,
+                final int toNodes,
+                final int[] from,
+                final int[] to
+        ) {
+
+            this.strategy = strategy;
+            this.fromNodes = fromNodes;
+            this.toNodes = toNodes;
+
+            long moved = 0;
+            for (int i = 0; i < from.length; i++) {
+
+                if (from[ i ] != to[ i ]) moved++;
+            }
+
+            this.movedFraction = (double) moved / from.length;
+        }
+
+        public Strategy getStrategy() {
+
+            return strategy;
+        }
+
+        public int getFromNodes() {
+
+            return fromNodes;
+        }
+
+        public int getToNodes() {
+
+            return toNodes;
+        }
+
+        /**
+         * @return Fraction of keys assigned to different node
+         */
+        public double getMovedFraction() {
+
+            return movedFraction;
+        }
+
+        @Override
+        public String toString() {
+
+            return String.format(
+                    Locale.ROOT,
+                    "%s %s -> %s nodes: %.2f%% keys moved",
+                    strategy.name().toLowerCase(Locale.ROOT), fromNodes, toNodes, movedFraction * 100
+            );
+        }
+    }
+}
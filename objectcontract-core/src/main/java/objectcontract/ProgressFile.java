@@ -0,0 +1,203 @@
+package objectcontract;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Memory-mapped record of verified tiles.
+ *
+ * <p>Tile is a pair of equality groups (<code>lhsGroup</code>,
+ * <code>rhsGroup</code>) identified by <code>lhsGroup * groupCount + rhsGroup</code>.
+ * File consists of a header followed by two bitmaps with one bit per tile.
+ * The first marks tiles that were verified successfully, the second tiles
+ * that failed. Failed tiles are not completed so they are verified again by
+ * the next run, failure record is cleared once they pass.</p>
+ *
+ * <pre>
+ * int magic, int version, int groupCount, int fingerprint
+ * byte[tiles / 8] completed
+ * byte[tiles / 8] failed
+ * </pre>
+ *
+ * @author Oliver Gondža (ogondza@gmail.com)
+ */
+final class ProgressFile {
+
+    private static final int MAGIC = 0x4f435046;
+    private static final int VERSION = 3;
+    private static final int HEADER_SIZE = 4 * 4;
+
+    private final File file;
+    private final RandomAccessFile raf;
+    private final MappedByteBuffer buffer;
+    private final int failedOffset;
+
+    private ProgressFile(
+            final File file,
+            final RandomAccessFile raf,
+            final MappedByteBuffer buffer,
+            final int failedOffset
+    ) {
+
+        this.file = file;
+        this.raf = raf;
+        this.buffer = buffer;
+        this.failedOffset = failedOffset;
+    }
+
+    /**
+     * Open existing progress file or create new one.
+     *
+     * @param file File to open
+     * @param groupCount Number of groups of the checker
+     * @param fingerprint Fingerprint of checker configuration and groups
+     * @return Opened progress file
+     */
+    static ProgressFile open(
+            final File file, final int groupCount, final int fingerprint
+    ) {
+
+        final long tiles = (long) groupCount * groupCount;
+        final long bitmapSize = (tiles + 7) / 8;
+        final long size = HEADER_SIZE + 2 * bitmapSize;
+
+        if (size > Integer.MAX_VALUE) throw new IllegalStateException(
+                "Too many groups to checkpoint: " + groupCount
+        );
+
+        try {
+
+            final RandomAccessFile raf = new RandomAccessFile(file, "rw");
+
+            boolean opened = false;
+            try {
+
+                final boolean existing = raf.length() != 0;
+                if (existing && raf.length() != size) throw mismatch(file);
+
+                final MappedByteBuffer buffer = raf.getChannel().map(
+                        FileChannel.MapMode.READ_WRITE, 0, size
+                );
+
+                if (existing) {
+
+                    final boolean matches = buffer.getInt(0) == MAGIC
+                            && buffer.getInt(4) == VERSION
+                            && buffer.getInt(8) == groupCount
+                            && buffer.getInt(12) == fingerprint
+                    ;
+
+                    if (!matches) throw mismatch(file);
+                } else {
+
+                    buffer.putInt(0, MAGIC);
+                    buffer.putInt(4, VERSION);
+                    buffer.putInt(8, groupCount);
+                    buffer.putInt(12, fingerprint);
+                }
+
+                final ProgressFile progress = new ProgressFile(
+                        file, raf, buffer, (int) (HEADER_SIZE + bitmapSize)
+                );
+
+                opened = true;
+                return progress;
+            } finally {
+
+                if (!opened) raf.close();
+            }
+        } catch (IOException ex) {
+
+            throw new IllegalStateException(
+                    "Unable to open progress file " + file, ex
+            );
+        }
+    }
+
+    private static IllegalStateException mismatch(final File file) {
+
+        return new IllegalStateException(
+                "Progress file " + file + " does not match checker configuration"
+        );
+    }
+
+    /**
+     * @param tile Tile index
+     * @return true if the tile was verified successfully
+     */
+    boolean isCompleted(final long tile) {
+
+        return getBit(HEADER_SIZE, tile);
+    }
+
+    /**
+     * @param tile Tile index
+     * @return true if the last verification of the tile failed
+     */
+    boolean isFailed(final long tile) {
+
+        return getBit(failedOffset, tile);
+    }
+
+    /**
+     * Record tile was verified successfully.
+     *
+     * @param tile Tile index
+     */
+    void complete(final long tile) {
+
+        setBit(HEADER_SIZE, tile);
+        clearBit(failedOffset, tile);
+    }
+
+    /**
+     * Record tile verification failed.
+     *
+     * @param tile Tile index
+     */
+    void fail(final long tile) {
+
+        setBit(failedOffset, tile);
+    }
+
+    /**
+     * Flush the progress to disk and release the file.
+     */
+    void close() {
+
+        buffer.force();
+
+        try {
+
+            raf.close();
+        } catch (IOException ex) {
+
+            throw new IllegalStateException(
+                    "Unable to close progress file " + file, ex
+            );
+        }
+    }
+
+    private boolean getBit(final int offset, final long bit) {
+
+        final int index = offset + (int) (bit >>> 3);
+        return (buffer.get(index) & (1 << (bit & 7))) != 0;
+    }
+
+    private void setBit(final int offset, final long bit) {
+
+        final int index = offset + (int) (bit >>> 3);
+
+        buffer.put(index, (byte) (buffer.get(index) | 1 << (bit & 7)));
+    }
+
+    private void clearBit(final int offset, final long bit) {
+
+        final int index = offset + (int) (bit >>> 3);
+
+        buffer.put(index, (byte) (buffer.get(index) & ~(1 << (bit & 7))));
+    }
+}
@@ -0,0 +1,258 @@
+package objectcontract;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Creation of equal copies of instances.
+ *
+ * <p>Records are copied through their canonical constructor passing the
+ * values of record components. Other classes are copied either by copy
+ * constructor or by constructor with parameters of the same types as the
+ * instance fields, superclass fields first. The constructor is matched by
+ * field types only so it might assign the values to different fields, or
+ * not store them at all. Fields of such copy are therefore read back and
+ * compared with those of the prototype: primitives by value and references
+ * by identity. Equality of the copies is left to the checker. Method
+ * handles are resolved once per class. Records are detected reflectively so the class can run on
+ * platforms without them.</p>
+ *
+ * @author Oliver Gondža (ogondza@gmail.com)
+ */
+final class PrototypeCopier {
+
+    private static final ClassValue<PrototypeCopier> COPIERS = new ClassValue<PrototypeCopier>() {
+        @Override
+        protected PrototypeCopier computeValue(final Class<?> type) {
+
+            return create(type);
+        }
+    };
+
+    private static final MethodType ACCESSOR = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType CONSTRUCTOR = MethodType.methodType(Object.class, Object[].class);
+
+    private static final Method IS_RECORD = getMethod(Class.class, "isRecord");
+    private static final Method GET_RECORD_COMPONENTS = getMethod(Class.class, "getRecordComponents");
+
+    private final Class<?> type;
+    private final Constructor<?> source;
+    private final MethodHandle constructor;
+    private final MethodHandle[] accessors;
+    /** Fields read by accessors to verify on copy, null for no verification */
+    private final Field[] fields;
+
+    private PrototypeCopier(
+            final Class<?> type,
+            final Constructor<?> source,
+            final MethodHandle constructor,
+            final MethodHandle[] accessors,
+            final Field[] fields
+    ) {
+
+        this.type = type;
+        this.source = source;
+        this.constructor = constructor;
+        this.accessors = accessors;
+        this.fields = fields;
+    }
+
+    static PrototypeCopier forClass(final Class<?> type) {
+
+        return COPIERS.get(type);
+    }
+
+    /**
+     * @return Distinct copy of the prototype
+     */
+    Object copy(final Object prototype) {
+
+        final Object[] arguments = new Object[ accessors.length ];
+        final Object copy;
+
+        try {
+
+            for (int i = 0; i < accessors.length; i++) {
+
+                arguments[ i ] = (Object) accessors[ i ].invokeExact(prototype);
+            }
+
+            copy = (Object) constructor.invokeExact(arguments);
+
+            if (fields != null) for (int i = 0; i < fields.length; i++) {
+
+                final Object value = (Object) accessors[ i ].invokeExact(copy);
+                final boolean preserved = fields[ i ].getType().isPrimitive()
+                        ? arguments[ i ].equals(value)
+                        : arguments[ i ] == value
+                ;
+
+                if (!preserved) throw new IllegalStateException(
+                        "Copy of " + type.getName() + " created by " + source
+                        + " does not preserve field " + fields[ i ].getName()
+                );
+            }
+        } catch (RuntimeException ex) {
+
+            throw ex;
+        } catch (Error ex) {
+
+            throw ex;
+        } catch (Throwable ex) {
+
+            throw new IllegalStateException("Unable to copy " + type.getName(), ex);
+        }
+
+        return copy;
+    }
+
+    private static PrototypeCopier create(final Class<?> type) {
+
+        final MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+        try {
+
+            if (isRecord(type)) return forRecord(lookup, type);
+
+            final Constructor<?> copyConstructor = getConstructor(type, type);
+            if (copyConstructor != null) return new PrototypeCopier(
+                    type,
+                    copyConstructor,
+                    spread(lookup.unreflectConstructor(copyConstructor), 1),
+                    new MethodHandle[] { MethodHandles.identity(Object.class) },
+                    null
+            );
+
+            final List<Field> fields = new ArrayList<Field>();
+            collectFields(type, fields);
+
+            final Class<?>[] fieldTypes = new Class<?>[ fields.size() ];
+            final MethodHandle[] getters = new MethodHandle[ fields.size() ];
+            for (int i = 0; i < fieldTypes.length; i++) {
+
+                final Field field = fields.get(i);
+                field.setAccessible(true);
+                fieldTypes[ i ] = field.getType();
+                getters[ i ] = lookup.unreflectGetter(field).asType(ACCESSOR);
+            }
+
+            final Constructor<?> fieldConstructor = getConstructor(type, fieldTypes);
+            if (fieldConstructor != null) return new PrototypeCopier(
+                    type,
+                    fieldConstructor,
+                    spread(lookup.unreflectConstructor(fieldConstructor), fieldTypes.length),
+                    getters,
+                    fields.toArray(new Field[ fields.size() ])
+            );
+        } catch (IllegalAccessException ex) {
+
+            throw new IllegalStateException("Unable to copy " + type.getName(), ex);
+        }
+
+        throw new IllegalStateException(
+                "Unable to copy " + type.getName()
+                + ": not a record and there is no copy constructor or constructor matching its fields"
+        );
+    }
+
+    private static PrototypeCopier forRecord(
+            final MethodHandles.Lookup lookup, final Class<?> type
+    ) throws IllegalAccessException {
+
+        final Object[] components = (Object[]) invoke(GET_RECORD_COMPONENTS, type);
+
+        final Class<?>[] componentTypes = new Class<?>[ components.length ];
+        final MethodHandle[] getters = new MethodHandle[ components.length ];
+        for (int i = 0; i < components.length; i++) {
+
+            final Object component = components[ i ];
+            componentTypes[ i ] = (Class<?>) invoke(getMethod(component.getClass(), "getType"), component);
+
+            final Method accessor = (Method) invoke(getMethod(component.getClass(), "getAccessor"), component);
+            accessor.setAccessible(true);
+            getters[ i ] = lookup.unreflect(accessor).asType(ACCESSOR);
+        }
+
+        final Constructor<?> canonical = getConstructor(type, componentTypes);
+        if (canonical == null) throw new IllegalStateException(
+                "No canonical constructor of " + type.getName()
+        );
+
+        return new PrototypeCopier(
+                type, canonical, spread(lookup.unreflectConstructor(canonical), componentTypes.length), getters, null
+        );
+    }
+
+    private static boolean isRecord(final Class<?> type) {
+
+        return IS_RECORD != null && (Boolean) invoke(IS_RECORD, type);
+    }
+
+    private static void collectFields(final Class<?> type, final List<Field> fields) {
+
+        if (type == null || type == Object.class) return;
+
+        collectFields(type.getSuperclass(), fields);
+
+        for (final Field field: type.getDeclaredFields()) {
+
+            if (Modifier.isStatic(field.getModifiers()) || field.isSynthetic()) continue;
+
+            fields.add(field);
+        }
+    }
+
+    private static Constructor<?> getConstructor(final Class<?> type, final Class<?>... parameters) {
+
+        try {
+
+            final Constructor<?> constructor = type.getDeclaredConstructor(parameters);
+            constructor.setAccessible(true);
+            return constructor;
+        } catch (NoSuchMethodException ex) {
+
+            return null;
+        }
+    }
+
+    /**
+     * Adapt constructor to accept its arguments as an array and return Object.
+     */
+    private static MethodHandle spread(final MethodHandle constructor, final int arity) {
+
+        return constructor
+                .asType(constructor.type().changeReturnType(Object.class))
+                .asSpreader(Object[].class, arity)
+                .asType(CONSTRUCTOR)
+        ;
+    }
+
+    private static Method getMethod(final Class<?> type, final String name) {
+
+        try {
+
+            return type.getMethod(name);
+        } catch (NoSuchMethodException ex) {
+
+            return null;
+        }
+    }
+
+    private static Object invoke(final Method method, final Object target) {
+
+        try {
+
+            return method.invoke(target);
+        } catch (Exception ex) {
+
+            throw new IllegalStateException("Unable to invoke " + method, ex);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package objectcontract;
+
+import java.io.Closeable;
+
+/**
+ * Receiver of results of individual checks.
+ *
+ * <p>Results are passed to the sink as the checks are performed so the sink
+ * is expected to write them out instead of holding them in memory. Sink is
+ * not closed by the checker.</p>
+ *
+ * @author Oliver Gondža (ogondza@gmail.com)
+ * @see EqualsHashCodeChecker.Builder#reportTo(ReportSink)
+ * @see JsonLinesReportSink
+ * @see JUnitXmlReportSink
+ */
+public interface ReportSink extends Closeable {
+
+    /**
+     * Record passed check.
+     *
+     * @param check Name of the asserter method performing the check
+     * @param subject Description of the check, <code>[0;1] equals [0;2]</code> for instance.
+     */
+    void passed(final String check, final String subject);
+
+    /**
+     * Record failed check.
+     *
+     * @param check Name of the asserter method performing the check
+     * @param subject Description of the check, <code>[0;1] equals [0;2]</code> for instance.
+     * @param message Message of the failure
+     */
+    void failed(final String check, final String subject, final String message);
+}
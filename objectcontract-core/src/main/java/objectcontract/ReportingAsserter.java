@@ -0,0 +1,145 @@
+package objectcontract;
+
+/**
+ * Asserter reporting outcome of every check to {@link ReportSink}.
+ *
+ * @author Oliver Gondža (ogondza@gmail.com)
+ */
+final class ReportingAsserter implements EqualsHashCodeAsserter {
+
+    private final EqualsHashCodeAsserter asserter;
+    private final ReportSink sink;
+    private final boolean reportPassed;
+
+    ReportingAsserter(
+            final EqualsHashCodeAsserter asserter,
+            final ReportSink sink,
+            final boolean reportPassed
+    ) {
+
+        this.asserter = asserter;
+        this.sink = sink;
+        this.reportPassed = reportPassed;
+    }
+
+    public void checkEqualsReflexivity(final Object instance, final String message) {
+
+        try {
+
+            asserter.checkEqualsReflexivity(instance, message);
+        } catch (RuntimeException ex) {
+
+            throw failed("checkEqualsReflexivity", message, ex);
+        } catch (Error ex) {
+
+            throw failed("checkEqualsReflexivity", message, ex);
+        }
+
+        passed("checkEqualsReflexivity", message);
+    }
+
+    public void checkEqualsFailsForNull(final Object instance, final String message) {
+
+        try {
+
+            asserter.checkEqualsFailsForNull(instance, message);
+        } catch (RuntimeException ex) {
+
+            throw failed("checkEqualsFailsForNull", message, ex);
+        } catch (Error ex) {
+
+            throw failed("checkEqualsFailsForNull", message, ex);
+        }
+
+        passed("checkEqualsFailsForNull", message);
+    }
+
+    public void checkEquals(final Object lhs, final Object rhs, final String message) {
+
+        try {
+
+            asserter.checkEquals(lhs, rhs, message);
+        } catch (RuntimeException ex) {
+
+            throw failed("checkEquals", message, ex);
+        } catch (Error ex) {
+
+            throw failed("checkEquals", message, ex);
+        }
+
+        passed("checkEquals", message);
+    }
+
+    public void checkHashCodeEquals(final Object lhs, final Object rhs, final String message) {
+
+        try {
+
+            asserter.checkHashCodeEquals(lhs, rhs, message);
+        } catch (RuntimeException ex) {
+
+            throw failed("checkHashCodeEquals", message, ex);
+        } catch (Error ex) {
+
+            throw failed("checkHashCodeEquals", message, ex);
+        }
+
+        passed("checkHashCodeEquals", message);
+    }
+
+    public void checkDoesNotEqual(final Object lhs, final Object rhs, final String message) {
+
+        try {
+
+            asserter.checkDoesNotEqual(lhs, rhs, message);
+        } catch (RuntimeException ex) {
+
+            throw failed("checkDoesNotEqual", message, ex);
+        } catch (Error ex) {
+
+            throw failed("checkDoesNotEqual", message, ex);
+        }
+
+        passed("checkDoesNotEqual", message);
+    }
+
+    public void checkHashCodeDoesNotEqual(final Object lhs, final Object rhs, final String message) {
+
+        try {
+
+            asserter.checkHashCodeDoesNotEqual(lhs, rhs, message);
+        } catch (RuntimeException ex) {
+
+            throw failed("checkHashCodeDoesNotEqual", message, ex);
+        } catch (Error ex) {
+
+            throw failed("checkHashCodeDoesNotEqual", message, ex);
+        }
+
+        passed("checkHashCodeDoesNotEqual", message);
+    }
+
+    private void passed(final String check, final String message) {
+
+        if (reportPassed) sink.passed(check, subject(message));
+    }
+
+    private <T extends Throwable> T failed(final String check, final String message, final T ex) {
+
+        sink.failed(check, subject(message), String.valueOf(ex.getMessage()));
+        return ex;
+    }
+
+    /**
+     * Strip the message down to the description of the check.
+     */
+    private String subject(final String message) {
+
+        int begin = 0;
+        int end = message.length();
+
+        if (message.startsWith(EqualsHashCodeChecker.PREFIX)) begin = EqualsHashCodeChecker.PREFIX.length();
+        if (message.endsWith(".")) end--;
+
+        return message.substring(begin, Math.max(begin, end));
+    }
+}
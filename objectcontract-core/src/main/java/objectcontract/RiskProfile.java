@@ -0,0 +1,99 @@
+package objectcontract;
+
+/**
+ * Estimation of likelihood tiles would fail.
+ *
+ * <p>Tile is scored by the sum of weights of the traps it contains:</p>
+ *
+ * <ul>
+ *   <li>{@value #FAILED_BEFORE} for groups with classes that failed in
+ *   previous runs,</li>
+ *   <li>{@value #HASH_COLLISION} for different groups with colliding
+ *   hash codes, unless the collisions are allowed,</li>
+ *   <li>{@value #CLASS_MISMATCH} for instances of different concrete classes
+ *   (symmetry traps of subclasses),</li>
+ *   <li>{@value #SAME_GROUP} for instances of the same group.</li>
+ * </ul>
+ *
+ * <p>Profile keeps the class of homogeneous groups and the hash code of
+ * the first instance of every group. Hash codes are compared when the tile
+ * is scored so the profile takes constant space per group.</p>
+ *
+ * @author Oliver Gondža (ogondza@gmail.com)
+ */
+final class RiskProfile {
+
+    static final int FAILED_BEFORE = 8;
+    static final int HASH_COLLISION = 4;
+    static final int CLASS_MISMATCH = 2;
+    static final int SAME_GROUP = 1;
+
+    static final int MAX_SCORE = FAILED_BEFORE + HASH_COLLISION + CLASS_MISMATCH + SAME_GROUP;
+
+    private final FailureHistory history;
+    private final boolean allowHashCodeCollision;
+    private final Class<?>[] groupClasses;
+    private final boolean[] failedBefore;
+    private final int[] hashBuckets;
+
+    RiskProfile(final int groupCount, final FailureHistory history, final boolean allowHashCodeCollision) {
+
+        this.history = history;
+        this.allowHashCodeCollision = allowHashCodeCollision;
+        groupClasses = new Class<?>[ groupCount ];
+        failedBefore = new boolean[ groupCount ];
+        hashBuckets = new int[ groupCount ];
+    }
+
+    /**
+     * Profile the group. Every group has to be profiled before the tiles are
+     * scored.
+     */
+    void add(final int groupIndex, final Object[] group) {
+
+        groupClasses[ groupIndex ] = getHomogeneousClass(group);
+        failedBefore[ groupIndex ] = history != null && history.contains(group);
+        hashBuckets[ groupIndex ] = group[ 0 ].hashCode();
+    }
+
+    private static Class<?> getHomogeneousClass(final Object[] group) {
+
+        final Class<?> type = group[ 0 ].getClass();
+        for (final Object instance: group) {
+
+            if (instance.getClass() != type) return null;
+        }
+
+        return type;
+    }
+
+    /**
+     * @return Score of the tile between 0 and {@link #MAX_SCORE}
+     */
+    int score(final int lhsGroupIndex, final int rhsGroupIndex) {
+
+        int score = 0;
+
+        if (failedBefore[ lhsGroupIndex ] || failedBefore[ rhsGroupIndex ]) {
+
+            score += FAILED_BEFORE;
+        }
+
+        if (!allowHashCodeCollision && lhsGroupIndex != rhsGroupIndex
+                && hashBuckets[ lhsGroupIndex ] == hashBuckets[ rhsGroupIndex ]
+        ) {
+
+            score += HASH_COLLISION;
+        }
+
+        final Class<?> lhsClass = groupClasses[ lhsGroupIndex ];
+        if (lhsClass == null || lhsClass != groupClasses[ rhsGroupIndex ]) {
+
+            score += CLASS_MISMATCH;
+        }
+
+        if (lhsGroupIndex == rhsGroupIndex) score += SAME_GROUP;
+
+        return score;
+    }
+}
@@ -0,0 +1,70 @@
+package objectcontract;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+/**
+ * Codec using Java serialization.
+ *
+ * @author Oliver Gondža (ogondza@gmail.com)
+ */
+public final class SerializationCodec implements InstanceCodec {
+
+    public byte[] encode(final Object instance) {
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try {
+
+            final ObjectOutputStream out = new ObjectOutputStream(bytes);
+            out.writeObject(instance);
+            out.close();
+        } catch (IOException ex) {
+
+            throw new IllegalArgumentException(
+                    "Unable to serialize " + instance, ex
+            );
+        }
+
+        return bytes.toByteArray();
+    }
+
+    public Object decode(final byte[] data) {
+
+        try {
+
+            final ObjectInputStream in = new ObjectInputStream(
+                    new ByteArrayInputStream(data)
+            );
+
+            try {
+
+                return in.readObject();
+            } finally {
+
+                in.close();
+            }
+        } catch (IOException ex) {
+
+            throw new IllegalStateException("Unable to deserialize instance", ex);
+        } catch (ClassNotFoundException ex) {
+
+            throw new IllegalStateException("Unable to deserialize instance", ex);
+        }
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+
+        return o != null && o.getClass() == this.getClass();
+    }
+
+    @Override
+    public int hashCode() {
+
+        return getClass().hashCode();
+    }
+}
@@ -0,0 +1,85 @@
+package objectcontract;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Deterministic assignment of tiles to shards.
+ *
+ * <p>Tiles are assigned using longest-processing-time-first heuristic. Units
+ * ordered by decreasing cost, estimated as the number of instance pairs they
+ * cover, are assigned to the least loaded shard one by one. For a large
+ * number of groups, whole rows of tiles sharing <code>lhsGroup</code> are
+ * assigned together so the plan stays small. The plan depends on group sizes
+ * only so all the shards compute the same one independently.</p>
+ *
+ * @author Oliver Gondža (ogondza@gmail.com)
+ */
+final class ShardPlan {
+
+    private static final int MAX_TILE_UNITS = 1 << 20;
+
+    private final int groupCount;
+    private final boolean byRows;
+    private final boolean[] included;
+
+    ShardPlan(final GroupSource groups, final int index, final int count) {
+
+        groupCount = groups.getGroupCount();
+        byRows = (long) groupCount * groupCount > MAX_TILE_UNITS;
+
+        long totalSize = 0;
+        final long[] sizes = new long[ groupCount ];
+        for (int groupIndex = 0; groupIndex < groupCount; groupIndex++) {
+
+            sizes[ groupIndex ] = groups.getGroupSize(groupIndex);
+            totalSize += sizes[ groupIndex ];
+        }
+
+        final int unitCount = byRows ? groupCount : groupCount * groupCount;
+        final long[] costs = new long[ unitCount ];
+        final Integer[] order = new Integer[ unitCount ];
+        for (int unit = 0; unit < unitCount; unit++) {
+
+            costs[ unit ] = byRows
+                    ? sizes[ unit ] * totalSize
+                    : sizes[ unit / groupCount ] * sizes[ unit % groupCount ]
+            ;
+            order[ unit ] = unit;
+        }
+
+        Arrays.sort(order, new Comparator<Integer>() {
+            public int compare(final Integer lhs, final Integer rhs) {
+
+                if (costs[ lhs ] != costs[ rhs ]) return costs[ lhs ] > costs[ rhs ] ? -1 : 1;
+
+                return lhs.compareTo(rhs);
+            }
+        });
+
+        final long[] loads = new long[ count ];
+        included = new boolean[ unitCount ];
+        for (final int unit: order) {
+
+            int shard = 0;
+            for (int candidate = 1; candidate < count; candidate++) {
+
+                if (loads[ candidate ] < loads[ shard ]) shard = candidate;
+            }
+
+            loads[ shard ] += costs[ unit ];
+            included[ unit ] = shard == index;
+        }
+    }
+
+    /**
+     * @return true if the tile belongs to the shard
+     */
+    boolean includes(final int lhsGroupIndex, final int rhsGroupIndex) {
+
+        return byRows
+                ? included[ lhsGroupIndex ]
+                : included[ lhsGroupIndex * groupCount + rhsGroupIndex ]
+        ;
+    }
+}
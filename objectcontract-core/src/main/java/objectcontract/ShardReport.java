@@ -0,0 +1,257 @@
+package objectcontract;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Outcome of verification of a single shard.
+ *
+ * <p>Reports of all the shards can be merged into single verdict either
+ * using {@link #merge(ShardReport...)} or from command line:</p>
+ *
+ * <pre>
+ * java -cp objectcontract-core.jar objectcontract.ShardReport shard-*.properties
+ * </pre>
+ *
+ * @author Oliver Gondža (ogondza@gmail.com)
+ * @see EqualsHashCodeChecker.Builder#shard(int, int)
+ */
+public final class ShardReport {
+
+    private final int index;
+    private final int count;
+    private final int fingerprint;
+    private final long totalTiles;
+    private final long verifiedTiles;
+    private final List<String> failures;
+
+    ShardReport(
+            final int index,
+            final int count,
+            final int fingerprint,
+            final long totalTiles,
+            final long verifiedTiles,
+            final List<String> failures
+    ) {
+
+        this.index = index;
+        this.count = count;
+        this.fingerprint = fingerprint;
+        this.totalTiles = totalTiles;
+        this.verifiedTiles = verifiedTiles;
+        this.failures = Collections.unmodifiableList(failures);
+    }
+
+    /**
+     * @return Index of the shard
+     */
+    public int getIndex() {
+
+        return index;
+    }
+
+    /**
+     * @return Number of shards
+     */
+    public int getCount() {
+
+        return count;
+    }
+
+    /**
+     * @return Number of tiles of the whole pair space
+     */
+    public long getTotalTiles() {
+
+        return totalTiles;
+    }
+
+    /**
+     * @return Number of tiles verified successfully
+     */
+    public long getVerifiedTiles() {
+
+        return verifiedTiles;
+    }
+
+    /**
+     * @return Failure messages
+     */
+    public List<String> getFailures() {
+
+        return failures;
+    }
+
+    /**
+     * @return true if whole pair space was verified without failures
+     */
+    public boolean isPassed() {
+
+        return failures.isEmpty() && verifiedTiles == totalTiles;
+    }
+
+    /**
+     * Merge reports of all the shards into single report.
+     *
+     * @param reports Reports of all the shards
+     * @return Report covering all shards
+     */
+    public static ShardReport merge(final ShardReport... reports) {
+
+        if (reports.length == 0) throw new IllegalStateException(
+                "No reports provided"
+        );
+
+        final ShardReport first = reports[ 0 ];
+        final ShardReport[] shards = new ShardReport[ first.count ];
+        final List<String> failures = new ArrayList<String>();
+        long verifiedTiles = 0;
+
+        for (final ShardReport report: reports) {
+
+            if (report.count != first.count || report.fingerprint != first.fingerprint) {
+
+                throw new IllegalStateException(
+                        "Report of shard " + report.index + " belongs to different configuration"
+                );
+            }
+
+            if (shards[ report.index ] != null) throw new IllegalStateException(
+                    "Duplicate report of shard " + report.index
+            );
+
+            shards[ report.index ] = report;
+            verifiedTiles += report.verifiedTiles;
+            failures.addAll(report.failures);
+        }
+
+        for (int shard = 0; shard < shards.length; shard++) {
+
+            if (shards[ shard ] == null) failures.add(
+                    "Shard " + shard + " of " + shards.length + " did not report"
+            );
+        }
+
+        return new ShardReport(
+                0, 1, first.fingerprint, first.totalTiles, verifiedTiles, failures
+        );
+    }
+
+    /**
+     * Read report from a file.
+     *
+     * @param file A file to read
+     * @return Report
+     */
+    public static ShardReport read(final File file) {
+
+        final Properties properties = new Properties();
+
+        try {
+
+            final InputStream in = new FileInputStream(file);
+            try {
+
+                properties.load(in);
+            } finally {
+
+                in.close();
+            }
+        } catch (IOException ex) {
+
+            throw new IllegalStateException("Unable to read report " + file, ex);
+        }
+
+        final List<String> failures = new ArrayList<String>();
+        for (int i = 0; properties.containsKey("failure." + i); i++) {
+
+            failures.add(properties.getProperty("failure." + i));
+        }
+
+        return new ShardReport(
+                Integer.parseInt(properties.getProperty("shard.index")),
+                Integer.parseInt(properties.getProperty("shard.count")),
+                Integer.parseInt(properties.getProperty("fingerprint")),
+                Long.parseLong(properties.getProperty("tiles.total")),
+                Long.parseLong(properties.getProperty("tiles.verified")),
+                failures
+        );
+    }
+
+    /**
+     * Write report to a file.
+     *
+     * @param file A file to write
+     */
+    public void write(final File file) {
+
+        final Properties properties = new Properties();
+        properties.setProperty("shard.index", String.valueOf(index));
+        properties.setProperty("shard.count", String.valueOf(count));
+        properties.setProperty("fingerprint", String.valueOf(fingerprint));
+        properties.setProperty("tiles.total", String.valueOf(totalTiles));
+        properties.setProperty("tiles.verified", String.valueOf(verifiedTiles));
+
+        for (int i = 0; i < failures.size(); i++) {
+
+            properties.setProperty("failure." + i, failures.get(i));
+        }
+
+        try {
+
+            final OutputStream out = new FileOutputStream(file);
+            try {
+
+                properties.store(out, "objectcontract shard report");
+            } finally {
+
+                out.close();
+            }
+        } catch (IOException ex) {
+
+            throw new IllegalStateException("Unable to write report " + file, ex);
+        }
+    }
+
+    @Override
+    public String toString() {
+
+        final StringBuilder builder = new StringBuilder(String.format(
+                "Verified %s of %s tiles", verifiedTiles, totalTiles
+        ));
+
+        for (final String failure: failures) {
+
+            builder.append('\n').append(failure);
+        }
+
+        return builder.toString();
+    }
+
+    /**
+     * Merge reports passed as arguments and print the verdict.
+     *
+     * @param args Report files
+     */
+    public static void main(final String[] args) {
+
+        final ShardReport[] reports = new ShardReport[ args.length ];
+        for (int i = 0; i < args.length; i++) {
+
+            reports[ i ] = read(new File(args[ i ]));
+        }
+
+        final ShardReport verdict = merge(reports);
+
+        System.out.println(verdict);
+        System.exit(verdict.isPassed() ? 0 : 1);
+    }
+}
@@ -0,0 +1,72 @@
+package objectcontract;
+
+/**
+ * Checking loop with <code>equals</code> and <code>hashCode</code> call sites
+ * of single combination of concrete classes.
+ *
+ * <p>The class is defined again from its bytecode by {@link CallSiteSpecializer}
+ * for every combination of concrete classes so the call sites below collect
+ * type profile of single class pair. Copies do not share runtime package with
+ * the checker so the class can refer to public types only. Checks that throw
+ * are reported as violated so the asserter reproduces the exception.</p>
+ *
+ * @author Oliver Gondža (ogondza@gmail.com)
+ */
+final class SpecializedChecks implements CallSiteSpecializer.Checks {
+
+    public boolean isSound(final Object instance) {
+
+        try {
+
+            return instance.equals(instance) && !instance.equals(null);
+        } catch (RuntimeException ex) {
+
+            return false;
+        }
+    }
+
+    public int findViolationWithinGroup(
+            final Object lhs, final Object[] group, final int from, final int to
+    ) {
+
+        for (int rhsIndex = from; rhsIndex < to; rhsIndex++) {
+
+            final Object rhs = group[ rhsIndex ];
+
+            try {
+
+                if (!lhs.equals(rhs) || lhs.hashCode() != rhs.hashCode()) return rhsIndex;
+            } catch (RuntimeException ex) {
+
+                return rhsIndex;
+            }
+        }
+
+        return to;
+    }
+
+    public int findViolationBetweenGroups(
+            final Object lhs,
+            final Object[] group,
+            final int from,
+            final int to,
+            final boolean allowHashCodeCollision
+    ) {
+
+        for (int rhsIndex = from; rhsIndex < to; rhsIndex++) {
+
+            final Object rhs = group[ rhsIndex ];
+
+            try {
+
+                if (lhs.equals(rhs)) return rhsIndex;
+                if (!allowHashCodeCollision && lhs.hashCode() == rhs.hashCode()) return rhsIndex;
+            } catch (RuntimeException ex) {
+
+                return rhsIndex;
+            }
+        }
+
+        return to;
+    }
+}
@@ -0,0 +1,209 @@
+package objectcontract;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Scanner;
+
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class BenchmarkGeneratorTest {
+
+    private File dir;
+
+    public static final class Fixtures implements GroupFactory {
+
+        public Object[][] getGroups() {
+
+            return new Object[][] {
+                    { "a", new String("a") },
+                    { new Integer(1) },
+                    { "b", new Integer(2) }
+            };
+        }
+    }
+
+    @BeforeMethod
+    public void createDirectory() throws IOException {
+
+        dir = File.createTempFile("objectcontract", "benchmarks");
+        dir.delete();
+    }
+
+    @AfterMethod
+    public void deleteDirectory() {
+
+        delete(dir);
+    }
+
+    @Test
+    public final void generateBenchmarkPerClass() throws IOException {
+
+        final List<File> sources = new BenchmarkGenerator(Fixtures.class).generate(dir);
+
+        assertEquals(2, sources.size());
+        assertEquals(new File(dir, "objectcontract/StringBenchmark.java"), sources.get(0));
+        assertEquals(new File(dir, "objectcontract/IntegerBenchmark.java"), sources.get(1));
+
+        final String strings = read(sources.get(0));
+        assertTrue(strings, strings.contains("public class StringBenchmark {"));
+        assertTrue(strings, strings.contains(
+                "new objectcontract.BenchmarkGeneratorTest.Fixtures().getGroups();"
+        ));
+        assertTrue(strings, strings.contains("instance = groups[0][0];"));
+        assertTrue(strings, strings.contains("equal = groups[0][1];"));
+        assertTrue(strings, strings.contains("unequal = groups[2][0];"));
+        assertTrue(strings, strings.contains("map.put(groups[0][0], Boolean.TRUE);"));
+        assertTrue(strings, strings.contains("map.put(groups[2][0], Boolean.TRUE);"));
+        assertFalse(strings, strings.contains("map.put(groups[0][1], Boolean.TRUE);"));
+        assertTrue(strings, strings.contains("public boolean equalsEqual() {"));
+        assertTrue(strings, strings.contains("public Object hashMapGet() {"));
+
+        // No pair of equal integers
+        final String integers = read(sources.get(1));
+        assertFalse(integers, integers.contains("equalsEqual"));
+        assertTrue(integers, integers.contains("unequal = groups[2][1];"));
+        assertTrue(integers, integers.contains("probe = groups[1][0];"));
+    }
+
+    @Test
+    public final void compileAndRunGeneratedBenchmarks() throws Exception {
+
+        final List<File> sources = new ArrayList<File>(new BenchmarkGenerator(Fixtures.class).generate(dir));
+        sources.addAll(writeJmhStubs());
+
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        final StandardJavaFileManager files = compiler.getStandardFileManager(null, null, null);
+        final StringWriter diagnostics = new StringWriter();
+
+        try {
+
+            final boolean compiled = compiler.getTask(
+                    diagnostics, files, null,
+                    Arrays.asList(
+                            "-d", dir.getPath(),
+                            "-classpath", System.getProperty("java.class.path")
+                    ),
+                    null, files.getJavaFileObjects(sources.toArray(new File[ sources.size() ]))
+            ).call();
+
+            assertTrue(diagnostics.toString(), compiled);
+        } finally {
+
+            files.close();
+        }
+
+        final ClassLoader loader = new URLClassLoader(
+                new URL[] { dir.toURI().toURL() }, getClass().getClassLoader()
+        );
+
+        final Class<?> benchmark = loader.loadClass("objectcontract.StringBenchmark");
+        final Object instance = benchmark.getDeclaredConstructor().newInstance();
+        benchmark.getMethod("setup").invoke(instance);
+
+        assertEquals(Boolean.TRUE, benchmark.getMethod("equalsEqual").invoke(instance));
+        assertEquals(Boolean.FALSE, benchmark.getMethod("equalsUnequal").invoke(instance));
+        assertEquals("a".hashCode(), benchmark.getMethod("hashCode").invoke(instance));
+        assertEquals(Boolean.TRUE, benchmark.getMethod("hashMapGet").invoke(instance));
+        assertEquals(Boolean.TRUE, benchmark.getMethod("hashMapReplace").invoke(instance));
+    }
+
+    @Test(
+            expectedExceptions = { IllegalStateException.class },
+            expectedExceptionsMessageRegExp = "Factory has to be top level or static nested class: .*"
+    )
+    public final void rejectLocalFactory() {
+
+        class LocalFixtures implements GroupFactory {
+
+            public Object[][] getGroups() {
+
+                return new Object[][] { { "a" } };
+            }
+        }
+
+        new BenchmarkGenerator(LocalFixtures.class);
+    }
+
+    /**
+     * Minimal declarations of JMH annotations the generated sources use.
+     */
+    private List<File> writeJmhStubs() throws IOException {
+
+        final File jmh = new File(dir, "org/openjdk/jmh/annotations");
+        jmh.mkdirs();
+
+        final List<File> stubs = new ArrayList<File>();
+        stubs.add(write(new File(jmh, "Benchmark.java"), "public @interface Benchmark {}"));
+        stubs.add(write(new File(jmh, "BenchmarkMode.java"), "public @interface BenchmarkMode { Mode[] value(); }"));
+        stubs.add(write(new File(jmh, "Mode.java"), "public enum Mode { AverageTime }"));
+        stubs.add(write(new File(jmh, "OutputTimeUnit.java"),
+                "public @interface OutputTimeUnit { java.util.concurrent.TimeUnit value(); }"
+        ));
+        stubs.add(write(new File(jmh, "Scope.java"), "public enum Scope { Benchmark }"));
+        stubs.add(write(new File(jmh, "Setup.java"), "public @interface Setup {}"));
+        stubs.add(write(new File(jmh, "State.java"), "public @interface State { Scope value(); }"));
+
+        return stubs;
+    }
+
+    private File write(final File file, final String declaration) throws IOException {
+
+        final Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+
+            writer.write("package org.openjdk.jmh.annotations;\n");
+            writer.write(declaration);
+            writer.write('\n');
+        } finally {
+
+            writer.close();
+        }
+
+        return file;
+    }
+
+    private void delete(final File file) {
+
+        final File[] children = file.listFiles();
+        if (children != null) {
+
+            for (final File child: children) {
+
+                delete(child);
+            }
+        }
+
+        file.delete();
+    }
+
+    private String read(final File file) throws IOException {
+
+        final Scanner scanner = new Scanner(file, "UTF-8");
+        try {
+
+            return scanner.useDelimiter("\\A").next();
+        } finally {
+
+            scanner.close();
+        }
+    }
+}
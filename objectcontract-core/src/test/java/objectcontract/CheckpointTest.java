@@ -0,0 +1,218 @@
+package objectcontract;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class CheckpointTest {
+
+    private File progress;
+
+    @BeforeMethod
+    public void createProgressFile() throws IOException {
+
+        progress = File.createTempFile("objectcontract", ".progress");
+        progress.delete();
+    }
+
+    @AfterMethod
+    public void deleteProgressFile() {
+
+        progress.delete();
+    }
+
+    @Test
+    public final void skipCompletedTiles() {
+
+        final CountingAsserter asserter = new CountingAsserter();
+
+        getChecker(asserter).enforceInvariants();
+        final int firstRun = asserter.count;
+
+        assertEquals(9 * 2, firstRun);
+
+        getChecker(asserter).enforceInvariants();
+
+        assertEquals(firstRun, asserter.count);
+    }
+
+    @Test
+    public final void resumeFromFailedTile() {
+
+        final CountingAsserter asserter = new CountingAsserter();
+        asserter.failAt = 13;
+
+        boolean thrown = false;
+        try {
+
+            getChecker(asserter).enforceInvariants();
+        } catch (AssertionError ex) {
+
+            thrown = true;
+        }
+
+        if (!thrown) fail("AssertionError not thrown");
+
+        final CountingAsserter resumed = new CountingAsserter();
+        getChecker(resumed).enforceInvariants();
+
+        // tiles [2;0], [2;1] and [2;2] remain
+        assertEquals(3 * 2, resumed.count);
+    }
+
+    @Test
+    public final void verifyFailedTilesFirst() {
+
+        final CountingAsserter asserter = new CountingAsserter();
+        // first check of tile [1;0]
+        asserter.failAt = 6;
+
+        try {
+
+            getChecker(asserter).enforceInvariants();
+            fail("AssertionError not thrown");
+        } catch (AssertionError ex) {
+
+            // expected
+        }
+
+        final CountingAsserter resumed = new CountingAsserter();
+        EqualsHashCodeChecker.getBuilder(resumed)
+                .setGroup(new Integer(1))
+                .setGroup(new Integer(2))
+                .setGroup(new Integer(3))
+                .checkpoint(progress)
+                .scheduleByRisk()
+                .getChecker()
+                .enforceInvariants()
+        ;
+
+        // Scheduling by risk would start with the checks of instances on themselves
+        assertEquals(
+                Arrays.asList("checkDoesNotEqual", "checkHashCodeDoesNotEqual"),
+                resumed.checks.subList(0, 2)
+        );
+        assertEquals(6 * 2, resumed.count);
+    }
+
+    @Test
+    public final void resumeWithInstancesHashedByIdentity() {
+
+        final CountingAsserter asserter = new CountingAsserter();
+
+        getIdentityChecker(asserter).enforceInvariants();
+        final int firstRun = asserter.count;
+
+        // Different JVM would create instances with different hash codes
+        getIdentityChecker(asserter).enforceInvariants();
+
+        assertEquals(firstRun, asserter.count);
+    }
+
+    @Test(
+            expectedExceptions = { IllegalStateException.class },
+            expectedExceptionsMessageRegExp = "Progress file .* does not match checker configuration"
+    )
+    public final void rejectForeignProgressFile() {
+
+        getChecker(new CountingAsserter()).enforceInvariants();
+
+        EqualsHashCodeChecker.getBuilder(new CountingAsserter())
+                .setGroup(new Integer(1))
+                .setGroup(new Integer(2))
+                .setGroup(new Integer(3), new Integer(3))
+                .checkpoint(progress)
+                .getChecker()
+                .enforceInvariants()
+        ;
+    }
+
+    @Test(
+            expectedExceptions = { IllegalStateException.class },
+            expectedExceptionsMessageRegExp = "Progress file .* does not match checker configuration"
+    )
+    public final void rejectProgressFileOfChangedClasses() {
+
+        getChecker(new CountingAsserter()).enforceInvariants();
+
+        EqualsHashCodeChecker.getBuilder(new CountingAsserter())
+                .setGroup(new Integer(1))
+                .setGroup(new Integer(2))
+                .setGroup(new Long(3))
+                .checkpoint(progress)
+                .getChecker()
+                .enforceInvariants()
+        ;
+    }
+
+    private EqualsHashCodeChecker getChecker(final EqualsHashCodeAsserter asserter) {
+
+        return EqualsHashCodeChecker.getBuilder(asserter)
+                .setGroup(new Integer(1))
+                .setGroup(new Integer(2))
+                .setGroup(new Integer(3))
+                .checkpoint(progress)
+                .getChecker()
+        ;
+    }
+
+    private EqualsHashCodeChecker getIdentityChecker(final EqualsHashCodeAsserter asserter) {
+
+        return EqualsHashCodeChecker.getBuilder(asserter)
+                .setGroup(new Object())
+                .setGroup(new Object())
+                .checkpoint(progress)
+                .getChecker()
+        ;
+    }
+
+    private static final class CountingAsserter extends DefaultEqualsHashCodeAsserter {
+
+        private int count = 0;
+        private int failAt = -1;
+        private final List<String> checks = new ArrayList<String>();
+
+        private void count(final String check) {
+
+            checks.add(check);
+            if (count++ == failAt) throw new AssertionError("Failing " + failAt);
+        }
+
+        @Override
+        public void checkEqualsReflexivity(Object instance, String message) {
+
+            count("checkEqualsReflexivity");
+            super.checkEqualsReflexivity(instance, message);
+        }
+
+        @Override
+        public void checkEqualsFailsForNull(Object instance, String message) {
+
+            count("checkEqualsFailsForNull");
+            super.checkEqualsFailsForNull(instance, message);
+        }
+
+        @Override
+        public void checkDoesNotEqual(Object lhs, Object rhs, String message) {
+
+            count("checkDoesNotEqual");
+            super.checkDoesNotEqual(lhs, rhs, message);
+        }
+
+        @Override
+        public void checkHashCodeDoesNotEqual(Object lhs, Object rhs, String message) {
+
+            count("checkHashCodeDoesNotEqual");
+            super.checkHashCodeDoesNotEqual(lhs, rhs, message);
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package objectcontract;
+
+import static org.testng.AssertJUnit.assertTrue;
+import static org.testng.AssertJUnit.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Arrays;
+
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class DifferentialCheckerTest {
+
+    private static final String FACTORY = "fixtures.MoneyFixtures";
+
+    private File dir;
+
+    @BeforeMethod
+    public void createDirectory() throws IOException {
+
+        dir = File.createTempFile("objectcontract", "differential");
+        dir.delete();
+        dir.mkdir();
+    }
+
+    @AfterMethod
+    public void deleteDirectory() {
+
+        delete(dir);
+    }
+
+    @Test
+    public final void sameSemantics() throws IOException {
+
+        final File oldVersion = compile("old", "a", "amount");
+        final File newVersion = compile("new", "a", "java.util.Arrays.hashCode(new int[] { amount }) - 31");
+
+        new DifferentialChecker(new File[] { oldVersion }, new File[] { newVersion })
+                .enforceSameSemantics(FACTORY)
+        ;
+    }
+
+    @Test
+    public final void reportDivergence() throws IOException {
+
+        final File oldVersion = compile("old", "a", "amount");
+        final File newVersion = compile("new", "a / 10", "amount / 10");
+
+        try {
+
+            new DifferentialChecker(new File[] { oldVersion }, new File[] { newVersion })
+                    .enforceSameSemantics(FACTORY)
+            ;
+        } catch (AssertionError ex) {
+
+            final String message = ex.getMessage();
+            assertTrue(message, message.contains("(7 differences)"));
+            assertTrue(message, message.contains("[1;0] hashCode: 2 in old, 0 in new"));
+            assertTrue(message, message.contains("[0;0] equals [1;0]: false in old, true in new"));
+            assertTrue(message, message.contains("[1;1] equals [0;0]: false in old, true in new"));
+            return;
+        }
+
+        fail("AssertionError not thrown");
+    }
+
+    @Test(
+            expectedExceptions = { IllegalStateException.class },
+            expectedExceptionsMessageRegExp = "fixtures.MoneyFixtures is not present on compared classpath"
+    )
+    public final void missingFactory() throws IOException {
+
+        final File oldVersion = compile("old", "a", "amount");
+
+        new DifferentialChecker(new File[] { oldVersion }, new File[] { dir })
+                .enforceSameSemantics(FACTORY)
+        ;
+    }
+
+    @Test(
+            expectedExceptions = { IllegalStateException.class },
+            expectedExceptionsMessageRegExp = "fixtures.LeakingFixtures refers to objectcontract/DefaultEqualsHashCodeAsserter missing on compared classpath"
+    )
+    public final void rejectClassMissingOnComparedClasspath() throws IOException {
+
+        final File oldVersion = compile("old", "a", "amount");
+        final File newVersion = compile("new", "a", "amount");
+
+        for (final File version: new File[] { oldVersion, newVersion }) {
+
+            compile(version, write(new File(version, "LeakingFixtures.java"),
+                    "package fixtures;",
+                    "public class LeakingFixtures implements objectcontract.GroupFactory {",
+                    "    public Object[][] getGroups() {",
+                    "        return new Object[][] { { new objectcontract.DefaultEqualsHashCodeAsserter() } };",
+                    "    }",
+                    "}"
+            ));
+        }
+
+        new DifferentialChecker(new File[] { oldVersion }, new File[] { newVersion })
+                .enforceSameSemantics("fixtures.LeakingFixtures")
+        ;
+    }
+
+    /**
+     * Compile version of Money class identifying instances by given
+     * expression of amount <code>a</code>.
+     */
+    private File compile(
+            final String version, final String identity, final String hashCode
+    ) throws IOException {
+
+        final File out = new File(dir, version);
+        out.mkdir();
+
+        final File money = write(new File(out, "Money.java"),
+                "package fixtures;",
+                "public class Money {",
+                "    private final int amount;",
+                "    public Money(int amount) { this.amount = amount; }",
+                "    private static int identity(int a) { return " + identity + "; }",
+                "    @Override public boolean equals(Object o) {",
+                "        return o instanceof Money && identity(((Money) o).amount) == identity(amount);",
+                "    }",
+                "    @Override public int hashCode() { return " + hashCode + "; }",
+                "}"
+        );
+
+        final File fixtures = write(new File(out, "MoneyFixtures.java"),
+                "package fixtures;",
+                "public class MoneyFixtures implements objectcontract.GroupFactory {",
+                "    public Object[][] getGroups() {",
+                "        return new Object[][] {",
+                "            { new Money(1) },",
+                "            { new Money(2), new Money(2) }",
+                "        };",
+                "    }",
+                "}"
+        );
+
+        compile(out, money, fixtures);
+
+        return out;
+    }
+
+    private void compile(final File out, final File... sources) throws IOException {
+
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        final StandardJavaFileManager files = compiler.getStandardFileManager(null, null, null);
+
+        try {
+
+            final boolean compiled = compiler.getTask(
+                    null, files, null,
+                    Arrays.asList(
+                            "-d", out.getPath(),
+                            "-classpath", System.getProperty("java.class.path")
+                    ),
+                    null, files.getJavaFileObjects(sources)
+            ).call();
+
+            assertTrue(compiled);
+        } finally {
+
+            files.close();
+        }
+    }
+
+    private File write(final File file, final String... lines) throws IOException {
+
+        final Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+
+            for (final String line: lines) {
+
+                writer.write(line);
+                writer.write('\n');
+            }
+        } finally {
+
+            writer.close();
+        }
+
+        return file;
+    }
+
+    private void delete(final File file) {
+
+        final File[] children = file.listFiles();
+        if (children != null) {
+
+            for (final File child: children) {
+
+                delete(child);
+            }
+        }
+
+        file.delete();
+    }
+}
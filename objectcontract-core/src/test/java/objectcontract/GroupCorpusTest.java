@@ -0,0 +1,197 @@
+package objectcontract;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+import static org.testng.AssertJUnit.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class GroupCorpusTest {
+
+    private final EqualsHashCodeAsserter asserter = new DefaultEqualsHashCodeAsserter();
+    private final InstanceCodec codec = new SerializationCodec();
+
+    private File file;
+    private GroupCorpus corpus;
+
+    @BeforeMethod
+    public void createCorpusFile() throws IOException {
+
+        file = File.createTempFile("objectcontract", ".corpus");
+    }
+
+    @AfterMethod
+    public void deleteCorpusFile() throws IOException {
+
+        if (corpus != null) corpus.close();
+        file.delete();
+    }
+
+    @Test
+    public final void readWrittenGroups() throws IOException {
+
+        write(
+                new Integer[] { new Integer(1), new Integer(1), new Integer(1) },
+                new Integer[] { new Integer(2) },
+                new Integer[] { new Integer(3), new Integer(3) }
+        );
+
+        corpus = GroupCorpus.open(file, codec);
+
+        assertEquals(3, corpus.getGroupCount());
+        assertEquals(3, corpus.getGroupSize(0));
+        assertEquals(1, corpus.getGroupSize(1));
+        assertEquals(2, corpus.getGroupSize(2));
+        assertEquals(3, corpus.getGroup(2)[1]);
+
+        EqualsHashCodeChecker.getBuilder(asserter)
+                .setGroupSource(corpus)
+                .getChecker()
+                .enforceInvariants()
+        ;
+    }
+
+    @Test(
+            expectedExceptions = { AssertionError.class },
+            expectedExceptionsMessageRegExp = ".*\\[2;0\\] equals \\[2;1\\]\\."
+    )
+    public final void brokenEqualityGroup() throws IOException {
+
+        write(
+                new Integer[] { new Integer(1) },
+                new Integer[] { new Integer(2) },
+                new Integer[] { new Integer(3), new Integer(4) }
+        );
+
+        corpus = GroupCorpus.open(file, codec);
+
+        EqualsHashCodeChecker.getBuilder(asserter)
+                .setGroupSource(corpus)
+                .getChecker()
+                .enforceInvariants()
+        ;
+    }
+
+    @Test(
+            expectedExceptions = {IllegalStateException.class},
+            expectedExceptionsMessageRegExp = "Groups can not be combined with group source"
+    )
+    public final void combineWithGroups() throws IOException {
+
+        write(new Integer[] { new Integer(1) });
+
+        corpus = GroupCorpus.open(file, codec);
+
+        EqualsHashCodeChecker.getBuilder(asserter)
+                .setGroupSource(corpus)
+                .setGroup(new Integer(2))
+                .getChecker()
+        ;
+    }
+
+    @Test(
+            expectedExceptions = {IllegalStateException.class},
+            expectedExceptionsMessageRegExp = ".* is not a group corpus"
+    )
+    public final void openForeignFile() {
+
+        corpus = GroupCorpus.open(file, codec);
+    }
+
+    @Test
+    public final void rejectCorruptGroupLength() throws IOException {
+
+        write(new Object[] { 1 }, new Object[] { 2 });
+
+        final RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+
+            // overwrite length of the second group
+            raf.seek(12);
+            raf.seek(12 + 4 + raf.readInt());
+            raf.writeInt(-1);
+        } finally {
+
+            raf.close();
+        }
+
+        try {
+
+            corpus = GroupCorpus.open(file, codec);
+            fail("Corrupt corpus opened");
+        } catch (IllegalStateException ex) {
+
+            assertEquals(IOException.class, ex.getCause().getClass());
+            assertTrue(ex.getCause().getMessage(), ex.getCause().getMessage().matches(
+                    "Corrupt corpus .*: group 1 declares length -1 and 1 instances"
+            ));
+        }
+    }
+
+    @Test(
+            expectedExceptions = { IllegalStateException.class },
+            expectedExceptionsMessageRegExp = "Corrupt corpus .*: instance 0 of group 0 declares length 2147483647 with \\d+ bytes remaining"
+    )
+    public final void rejectCorruptInstanceLength() throws IOException {
+
+        write(new Object[] { 1 });
+
+        final RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+
+            // overwrite length of the first instance
+            raf.seek(12 + 4 + 4);
+            raf.writeInt(Integer.MAX_VALUE);
+        } finally {
+
+            raf.close();
+        }
+
+        corpus = GroupCorpus.open(file, codec);
+        corpus.getGroup(0);
+    }
+
+    @Test
+    public final void rejectCorruptGroupCount() throws IOException {
+
+        write(new Object[] { 1 });
+
+        final RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+
+            raf.seek(8);
+            raf.writeInt(Integer.MAX_VALUE);
+        } finally {
+
+            raf.close();
+        }
+
+        try {
+
+            corpus = GroupCorpus.open(file, codec);
+            fail("Corrupt corpus opened");
+        } catch (IllegalStateException ex) {
+
+            assertTrue(ex.getCause().getMessage(), ex.getCause().getMessage().matches(
+                    "Corrupt corpus .*: invalid group count 2147483647 for \\d+ bytes"
+            ));
+        }
+    }
+
+    private void write(final Object[]... groups) throws IOException {
+
+        final GroupCorpus.Writer writer = new GroupCorpus.Writer(file, codec);
+        for (final Object[] group: groups) {
+
+            writer.addGroup(group);
+        }
+
+        writer.close();
+    }
+}
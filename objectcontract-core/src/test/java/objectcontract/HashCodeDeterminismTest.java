@@ -0,0 +1,147 @@
+package objectcontract;
+
+import java.io.Serializable;
+import java.lang.management.ManagementFactory;
+
+import org.testng.annotations.Test;
+
+public class HashCodeDeterminismTest {
+
+    private final EqualsHashCodeAsserter asserter = new DefaultEqualsHashCodeAsserter();
+
+    /**
+     * Hash code depends on the process it was computed in.
+     */
+    private static final class ProcessDependent implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int value;
+
+        private ProcessDependent(final int value) {
+
+            this.value = value;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+
+            return o instanceof ProcessDependent && ((ProcessDependent) o).value == value;
+        }
+
+        @Override
+        public int hashCode() {
+
+            return value == 0
+                    ? 0
+                    : ManagementFactory.getRuntimeMXBean().getName().hashCode() + value
+            ;
+        }
+    }
+
+    public static final class Fixtures implements GroupFactory {
+
+        public Object[][] getGroups() {
+
+            return new Object[][] {
+                    { "a", new String("a") },
+                    { new ProcessDependent(0) },
+                    { new ProcessDependent(1), new ProcessDependent(1) }
+            };
+        }
+    }
+
+    public static final class FailingFixtures implements GroupFactory {
+
+        public Object[][] getGroups() {
+
+            System.err.println("Fixture database unavailable");
+            throw new IllegalStateException("No fixtures");
+        }
+    }
+
+    public static final class HangingFixtures implements GroupFactory {
+
+        public Object[][] getGroups() {
+
+            System.out.println("Waiting for fixtures");
+            System.out.flush();
+
+            try {
+
+                Thread.sleep(Long.MAX_VALUE);
+            } catch (InterruptedException ex) {
+
+                throw new AssertionError(ex);
+            }
+
+            return null;
+        }
+    }
+
+    @Test
+    public final void deterministicHashCode() {
+
+        EqualsHashCodeChecker.getBuilder(asserter)
+                .setGroup(new Integer(1), new Integer(1))
+                .setGroup("a", new String("a"))
+                .setGroup(new ProcessDependent(0))
+                .getChecker()
+                .enforceHashCodeDeterminism()
+        ;
+    }
+
+    @Test(
+            expectedExceptions = { AssertionError.class },
+            expectedExceptionsMessageRegExp = "(?s)Failed asserting that \\[2;0\\] generates the same hashCode in forked JVM \\(.*\\)\\."
+                    + ".*Failed asserting that \\[2;1\\] generates the same hashCode in forked JVM \\(.*\\)\\."
+    )
+    public final void processDependentHashCode() {
+
+        EqualsHashCodeChecker.getBuilder(asserter)
+                .setGroups(new Fixtures().getGroups())
+                .getChecker()
+                .enforceInvariants()
+                .enforceHashCodeDeterminism()
+        ;
+    }
+
+    @Test(
+            expectedExceptions = { AssertionError.class },
+            expectedExceptionsMessageRegExp = "(?s)Failed asserting that \\[2;0\\] generates the same hashCode in forked JVM \\(.*\\)\\..*"
+    )
+    public final void processDependentHashCodeOfRecreatedGroups() {
+
+        EqualsHashCodeChecker.getBuilder(asserter)
+                .setGroups(new Fixtures().getGroups())
+                .getChecker()
+                .enforceHashCodeDeterminism(Fixtures.class)
+        ;
+    }
+
+    @Test(
+            expectedExceptions = { IllegalStateException.class },
+            expectedExceptionsMessageRegExp = "(?s)Forked JVM failed with exit code 1:\\s+Fixture database unavailable.*No fixtures.*"
+    )
+    public final void reportOutputOfFailedJvm() {
+
+        EqualsHashCodeChecker.getBuilder(asserter)
+                .setGroup(new Integer(1))
+                .getChecker()
+                .enforceHashCodeDeterminism(FailingFixtures.class)
+        ;
+    }
+
+    @Test(
+            expectedExceptions = { IllegalStateException.class },
+            expectedExceptionsMessageRegExp = "(?s)Forked JVM did not finish in 2 seconds:\\s+Waiting for fixtures"
+    )
+    public final void killHangingJvm() {
+
+        HashCodeDeterminism.enforce(
+                EqualsHashCodeChecker.getBuilder(asserter).setGroup(new Integer(1)).getChecker().getGroupSource(),
+                HangingFixtures.class,
+                2
+        );
+    }
+}
@@ -0,0 +1,186 @@
+package objectcontract;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+import static org.testng.AssertJUnit.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class HashCodeSnapshotTest {
+
+    private final EqualsHashCodeAsserter asserter = new DefaultEqualsHashCodeAsserter();
+
+    private File golden;
+
+    @BeforeMethod
+    public void createGoldenFile() throws IOException {
+
+        golden = File.createTempFile("objectcontract", ".snapshot");
+        golden.delete();
+    }
+
+    @AfterMethod
+    public void deleteGoldenFile() {
+
+        golden.delete();
+    }
+
+    @Test
+    public final void matchSnapshot() {
+
+        record(getBuilder(new Integer(2)));
+
+        assertTrue(golden.exists());
+
+        getBuilder(new Integer(2)).getChecker().enforceHashCodeSnapshot(golden);
+    }
+
+    @Test
+    public final void reportChanges() {
+
+        record(getBuilder(new Integer(2)));
+
+        try {
+
+            getBuilder(new Long(2))
+                    .setGroup(new Integer(3))
+                    .getChecker()
+                    .enforceHashCodeSnapshot(golden)
+            ;
+        } catch (AssertionError ex) {
+
+            final String message = ex.getMessage();
+            assertTrue(message, message.contains("(2 differences)"));
+            assertTrue(message, message.contains(
+                    "[1;0] class changed from java.lang.Integer to java.lang.Long"
+            ));
+            assertTrue(message, message.contains("[2;0] is missing in snapshot"));
+            return;
+        }
+
+        fail("AssertionError not thrown");
+    }
+
+    @Test(
+            expectedExceptions = { AssertionError.class },
+            expectedExceptionsMessageRegExp = "(?s).*\\[0;1\\] hashCode changed from 97 to 98"
+    )
+    public final void reportChangedHashCode() {
+
+        record(EqualsHashCodeChecker.getBuilder(asserter).setGroup("a", new String("a")));
+
+        EqualsHashCodeChecker.getBuilder(asserter)
+                .setGroup("a", "b")
+                .getChecker()
+                .enforceHashCodeSnapshot(golden)
+        ;
+    }
+
+    @Test
+    public final void updateSnapshot() {
+
+        record(getBuilder(new Integer(2)));
+        record(getBuilder(new Integer(3)));
+
+        getBuilder(new Integer(3)).getChecker().enforceHashCodeSnapshot(golden);
+    }
+
+    @Test
+    public final void matchRecordsByCoordinates() {
+
+        record(getBuilder(new Integer(2)).setGroup(new Integer(3)));
+
+        try {
+
+            EqualsHashCodeChecker.getBuilder(asserter)
+                    .setGroup(new Integer(1))
+                    .setGroup(new Integer(2))
+                    .setGroup(new Integer(3))
+                    .getChecker()
+                    .enforceHashCodeSnapshot(golden)
+            ;
+        } catch (AssertionError ex) {
+
+            assertEquals(
+                    "Failed asserting that hash codes match snapshot " + golden + " (1 differences):"
+                    + System.getProperty("line.separator") + "[0;1] is missing in groups",
+                    ex.getMessage()
+            );
+            return;
+        }
+
+        fail("AssertionError not thrown");
+    }
+
+    @Test(
+            expectedExceptions = { IllegalStateException.class },
+            expectedExceptionsMessageRegExp = "Snapshot .* does not exist, set system property objectcontract.snapshot.update=true to record it"
+    )
+    public final void rejectMissingSnapshot() {
+
+        getBuilder(new Integer(2)).getChecker().enforceHashCodeSnapshot(golden);
+    }
+
+    @Test(
+            expectedExceptions = { IllegalStateException.class },
+            expectedExceptionsMessageRegExp = ".* is corrupted, 3 records and class table at 68 do not fit 36 bytes"
+    )
+    public final void rejectTruncatedRecords() throws IOException {
+
+        record(getBuilder(new Integer(2)));
+        truncate(36);
+
+        getBuilder(new Integer(2)).getChecker().enforceHashCodeSnapshot(golden);
+    }
+
+    @Test(
+            expectedExceptions = { IllegalStateException.class },
+            expectedExceptionsMessageRegExp = ".* is corrupted, name of class 0 declares length 17 with 10 bytes remaining"
+    )
+    public final void rejectTruncatedClassTable() throws IOException {
+
+        record(getBuilder(new Integer(2)));
+        // class count, length and part of java.lang.Integer
+        truncate(68 + 4 + 4 + 10);
+
+        getBuilder(new Integer(2)).getChecker().enforceHashCodeSnapshot(golden);
+    }
+
+    private void truncate(final long length) throws IOException {
+
+        final RandomAccessFile raf = new RandomAccessFile(golden, "rw");
+        try {
+
+            raf.setLength(length);
+        } finally {
+
+            raf.close();
+        }
+    }
+
+    private void record(final EqualsHashCodeChecker.Builder builder) {
+
+        System.setProperty(EqualsHashCodeChecker.SNAPSHOT_UPDATE_PROPERTY, "true");
+        try {
+
+            builder.getChecker().enforceHashCodeSnapshot(golden);
+        } finally {
+
+            System.clearProperty(EqualsHashCodeChecker.SNAPSHOT_UPDATE_PROPERTY);
+        }
+    }
+
+    private EqualsHashCodeChecker.Builder getBuilder(final Object second) {
+
+        return EqualsHashCodeChecker.getBuilder(asserter)
+                .setGroup(new Integer(1), new Integer(1))
+                .setGroup(second)
+        ;
+    }
+}
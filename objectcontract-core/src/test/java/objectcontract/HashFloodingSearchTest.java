@@ -0,0 +1,146 @@
+package objectcontract;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.Random;
+
+import org.testng.annotations.Test;
+
+public class HashFloodingSearchTest {
+
+    private static final String LETTERS = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ";
+
+    @Test
+    public final void floodWeakHashCode() {
+
+        final HashFloodingSearch.Result result = new HashFloodingSearch(
+                new DefaultEqualsHashCodeAsserter(), new PointSpace()
+        ).search(50);
+
+        assertTrue(result.toString(), result.isComplete());
+        assertEquals(50, result.getInstances().size());
+
+        for (final Object instance: result.getInstances()) {
+
+            assertEquals(result.getTarget(), instance.hashCode());
+        }
+    }
+
+    @Test
+    public final void findCollidingStrings() {
+
+        final HashFloodingSearch.Result result = new HashFloodingSearch(
+                new DefaultEqualsHashCodeAsserter(), new StringSpace()
+        ).seed(42).search(2);
+
+        assertTrue(result.toString(), result.isComplete());
+
+        final Object lhs = result.getInstances().get(0);
+        final Object rhs = result.getInstances().get(1);
+        assertFalse(lhs.equals(rhs));
+        assertEquals(lhs.hashCode(), rhs.hashCode());
+    }
+
+    @Test
+    public final void floodBucket() {
+
+        final HashFloodingSearch.Result result = new HashFloodingSearch(
+                new DefaultEqualsHashCodeAsserter(), new StringSpace()
+        ).targetBucket(1024).search(20);
+
+        assertTrue(result.toString(), result.isComplete());
+
+        for (final Object instance: result.getInstances()) {
+
+            final int hashCode = instance.hashCode();
+            assertEquals(result.getTarget(), (hashCode ^ (hashCode >>> 16)) & 1023);
+        }
+    }
+
+    @Test
+    public final void reportIncompleteSearch() {
+
+        final HashFloodingSearch.Result result = new HashFloodingSearch(
+                new DefaultEqualsHashCodeAsserter(), new StringSpace()
+        ).maxAttempts(1000).search(3);
+
+        assertFalse(result.isComplete());
+        assertEquals(1000, result.getAttempts());
+        assertTrue(result.toString(), result.toString().matches(
+                "Found 1 of 3 unequal instances sharing hashCode -?\\d+ in 1000 attempts \\(1000 attempts per instance, \\d+ ms\\)"
+        ));
+    }
+
+    @Test(
+            expectedExceptions = { IllegalStateException.class },
+            expectedExceptionsMessageRegExp = "Table size has to be a power of two: 1000"
+    )
+    public final void rejectInvalidTableSize() {
+
+        new HashFloodingSearch(new DefaultEqualsHashCodeAsserter(), new StringSpace()).targetBucket(1000);
+    }
+
+    /**
+     * Point with hashCode summing its coordinates.
+     */
+    private static final class Point {
+
+        private final int x;
+        private final int y;
+
+        private Point(final int x, final int y) {
+
+            this.x = x;
+            this.y = y;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+
+            return o instanceof Point && ((Point) o).x == x && ((Point) o).y == y;
+        }
+
+        @Override
+        public int hashCode() {
+
+            return x + y;
+        }
+    }
+
+    private static final class PointSpace implements InputSpace {
+
+        public Object create(final Random random) {
+
+            return new Point(random.nextInt(1000), random.nextInt(1000));
+        }
+
+        public Object mutate(final Object instance, final Random random) {
+
+            final Point point = (Point) instance;
+            return new Point(point.x + random.nextInt(7) - 3, point.y + random.nextInt(7) - 3);
+        }
+    }
+
+    static final class StringSpace implements InputSpace {
+
+        public Object create(final Random random) {
+
+            final char[] chars = new char[ 8 ];
+            for (int i = 0; i < chars.length; i++) {
+
+                chars[ i ] = LETTERS.charAt(random.nextInt(LETTERS.length()));
+            }
+
+            return new String(chars);
+        }
+
+        public Object mutate(final Object instance, final Random random) {
+
+            final char[] chars = ((String) instance).toCharArray();
+            chars[ random.nextInt(chars.length) ] = LETTERS.charAt(random.nextInt(LETTERS.length()));
+            return new String(chars);
+        }
+    }
+}
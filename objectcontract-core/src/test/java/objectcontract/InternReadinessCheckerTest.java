@@ -0,0 +1,205 @@
+package objectcontract;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+import static org.testng.AssertJUnit.fail;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+
+import org.testng.SkipException;
+import org.testng.annotations.Test;
+
+public class InternReadinessCheckerTest {
+
+    @Test
+    public final void estimateSavings() {
+
+        final InternReadinessChecker.Report report = new InternReadinessChecker(getChecker(
+                new Object[] { new String("value"), new String("value"), new String("value") },
+                new Object[] { new String("other"), new String("other"), new String("other") }
+        )).enforceInternability();
+
+        assertEquals(6, report.getInstances());
+        assertEquals(2, report.getCanonicalInstances());
+
+        // 24 bytes of String and 24 bytes of its array per instance
+        assertEquals(6 * 48, report.getBytes());
+        assertEquals(2 * 48, report.getCanonicalBytes());
+        // 2 entries and table of 4 buckets
+        assertEquals(2 * 32 + 32, report.getPoolBytes());
+        assertEquals(6 * 48 - 2 * 48 - 96, report.getSavedBytes());
+    }
+
+    @Test
+    public final void countSharedStateOnce() {
+
+        final String name = "shared name";
+        final InternReadinessChecker.Report report = new InternReadinessChecker(getChecker(
+                new Object[] { new Named(name), new Named(name) }
+        )).enforceInternability();
+
+        // Named instances of 16 bytes share the name
+        assertEquals(2 * 16 + 24 + 32, report.getBytes());
+        assertEquals(16 + 24 + 32, report.getCanonicalBytes());
+    }
+
+    @Test
+    public final void estimateCollections() {
+
+        final String name = "shared name";
+        final InternReadinessChecker.Report report = new InternReadinessChecker(getChecker(
+                new Object[] {
+                        new ArrayList<String>(Collections.singletonList(name)),
+                        new ArrayList<String>(Collections.singletonList(name))
+                }
+        )).enforceInternability();
+
+        // ArrayList of 24 bytes with array of 24 bytes share the name
+        assertEquals(2 * 48 + 24 + 32, report.getBytes());
+        assertEquals(48 + 24 + 32, report.getCanonicalBytes());
+        assertTrue(report.getIncompleteTypes().isEmpty());
+    }
+
+    @Test
+    public final void reportIncompleteTypes() throws Exception {
+
+        try {
+
+            Class.class.getMethod("getModule");
+        } catch (NoSuchMethodException ex) {
+
+            throw new SkipException("Platform classes are open for reflection");
+        }
+
+        final InternReadinessChecker.Report report = new InternReadinessChecker(getChecker(
+                new Object[] { new URI("http://example.com"), new URI("http://example.com") }
+        )).enforceInternability();
+
+        assertEquals(Collections.singleton("java.net.URI"), report.getIncompleteTypes());
+        assertTrue(report.toString(), report.toString().endsWith(", state of [java.net.URI] not estimated"));
+    }
+
+    @Test(
+            expectedExceptions = { IllegalStateException.class },
+            expectedExceptionsMessageRegExp = "Argument threads has to be at least 1: 0"
+    )
+    public final void rejectInvalidThreads() {
+
+        new InternReadinessChecker(getChecker(new Object[] { new Integer(1) })).threads(0);
+    }
+
+    @Test
+    public final void internConcurrently() {
+
+        final Object[][] groups = new Object[ 100 ][];
+        for (int groupIndex = 0; groupIndex < groups.length; groupIndex++) {
+
+            groups[ groupIndex ] = new Object[ 10 ];
+            for (int instanceIndex = 0; instanceIndex < 10; instanceIndex++) {
+
+                groups[ groupIndex ][ instanceIndex ] = new Long(groupIndex);
+            }
+        }
+
+        final InternReadinessChecker.Report report = new InternReadinessChecker(getChecker(groups))
+                .threads(8)
+                .enforceInternability()
+        ;
+
+        assertEquals(100 * 10 * 24 - 100 * 24, report.getBytes() - report.getCanonicalBytes());
+        assertTrue(report.toString(), report.toString().startsWith(
+                "Interning 1000 instances into 100 saves "
+        ));
+    }
+
+    @Test
+    public final void reportSplitGroup() {
+
+        try {
+
+            new InternReadinessChecker(getChecker(
+                    new Object[] { new IdentityHash(1), new IdentityHash(1) }
+            )).enforceInternability();
+        } catch (AssertionError ex) {
+
+            final String message = ex.getMessage();
+            assertTrue(message, message.startsWith(
+                    "Failed asserting that groups can be interned (1 violations):"
+            ));
+            assertTrue(message, message.contains("resolves to different canonical instance than the rest of group 0"));
+            return;
+        }
+
+        fail("AssertionError not thrown");
+    }
+
+    @Test
+    public final void reportMergedGroups() {
+
+        try {
+
+            new InternReadinessChecker(getChecker(
+                    new Object[] { new Integer(1), new Integer(1) },
+                    new Object[] { new Integer(1) }
+            )).enforceInternability();
+        } catch (AssertionError ex) {
+
+            final String message = ex.getMessage();
+            assertTrue(message, message.contains("merges with group"));
+            return;
+        }
+
+        fail("AssertionError not thrown");
+    }
+
+    private EqualsHashCodeChecker getChecker(final Object[]... groups) {
+
+        return EqualsHashCodeChecker.getBuilder(new DefaultEqualsHashCodeAsserter())
+                .setGroups(groups)
+                .getChecker()
+        ;
+    }
+
+    private static final class Named {
+
+        private final String name;
+
+        private Named(final String name) {
+
+            this.name = name;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+
+            return o instanceof Named && ((Named) o).name.equals(name);
+        }
+
+        @Override
+        public int hashCode() {
+
+            return name.hashCode();
+        }
+    }
+
+    /**
+     * Equal by value but hashed by identity.
+     */
+    private static final class IdentityHash {
+
+        private final int value;
+
+        private IdentityHash(final int value) {
+
+            this.value = value;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+
+            return o instanceof IdentityHash && ((IdentityHash) o).value == value;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package objectcontract;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+import static org.testng.AssertJUnit.fail;
+
+import java.util.List;
+
+import objectcontract.PartitionAnalyzer.Distribution;
+import objectcontract.PartitionAnalyzer.Movement;
+import objectcontract.PartitionAnalyzer.Report;
+import objectcontract.PartitionAnalyzer.Strategy;
+
+import org.testng.annotations.Test;
+
+public class PartitionAnalyzerTest {
+
+    @Test
+    public final void balancedModulo() {
+
+        final Report report = new PartitionAnalyzer(integers(1000, 1)).nodes(10, 11).analyze();
+
+        final Distribution distribution = report.getDistribution(Strategy.MODULO, 10);
+        assertEquals(1.0, distribution.getMaxToMean(), 0.0001);
+        assertEquals(0.0, distribution.getStandardDeviation(), 0.0001);
+
+        final List<Movement> movements = report.getMovements();
+        assertEquals(2, movements.size());
+
+        // Only k % 10 == k % 11 keep their node
+        assertEquals(Strategy.MODULO, movements.get(0).getStrategy());
+        assertEquals(0.9, movements.get(0).getMovedFraction(), 0.0001);
+
+        // Roughly the share of the added node moves
+        assertEquals(Strategy.RING, movements.get(1).getStrategy());
+        assertTrue(movements.get(1).toString(), movements.get(1).getMovedFraction() < 0.2);
+
+        assertTrue(report.toString(), report.toString().contains(
+                "modulo 10 nodes: max/mean 1.00, stddev 0.00"
+        ));
+        assertTrue(report.toString(), report.toString().contains(
+                "modulo 10 -> 11 nodes: 90.00% keys moved"
+        ));
+    }
+
+    @Test
+    public final void ringSpreadsStridedKeys() {
+
+        final Report report = new PartitionAnalyzer(integers(1000, 4)).nodes(8).analyze();
+
+        assertEquals(4.0, report.getDistribution(Strategy.MODULO, 8).getMaxToMean(), 0.0001);
+        assertTrue(report.toString(), report.getDistribution(Strategy.RING, 8).getMaxToMean() < 2);
+    }
+
+    @Test
+    public final void failOnSkew() {
+
+        try {
+
+            new PartitionAnalyzer(integers(1000, 4)).nodes(3, 8).skewBound(2).analyze();
+        } catch (AssertionError ex) {
+
+            final String message = ex.getMessage();
+            assertTrue(message, message.startsWith(
+                    "Failed asserting that keys are balanced among 8 nodes by modulo (max/mean 4.00 > 2.00)."
+            ));
+            assertTrue(message, message.contains("modulo 3 nodes: max/mean 1.00, stddev 0.47"));
+            return;
+        }
+
+        fail("AssertionError not thrown");
+    }
+
+    @Test
+    public final void analyzeCheckerGroups() {
+
+        final EqualsHashCodeChecker checker = EqualsHashCodeChecker
+                .getBuilder(new DefaultEqualsHashCodeAsserter())
+                .setGroup(new Integer(0), new Integer(0))
+                .setGroup(new Integer(1))
+                .setGroup(new Integer(2))
+                .getChecker()
+        ;
+
+        final Distribution distribution = new PartitionAnalyzer(checker).nodes(2).analyze()
+                .getDistribution(Strategy.MODULO, 2)
+        ;
+
+        // 2 keys on node 0 and 1 key on node 1 out of 1.5 on average
+        assertEquals(2 / 1.5, distribution.getMaxToMean(), 0.0001);
+        assertEquals(0.5, distribution.getStandardDeviation(), 0.0001);
+    }
+
+    @Test(
+            expectedExceptions = { IllegalStateException.class },
+            expectedExceptionsMessageRegExp = "No node counts provided"
+    )
+    public final void requireNodes() {
+
+        new PartitionAnalyzer(integers(10, 1)).analyze();
+    }
+
+    private Object[] integers(final int count, final int stride) {
+
+        final Object[] integers = new Object[ count ];
+        for (int i = 0; i < count; i++) {
+
+            integers[ i ] = new Integer(i * stride);
+        }
+
+        return integers;
+    }
+}
@@ -0,0 +1,206 @@
+package objectcontract;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+import static org.testng.AssertJUnit.fail;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class ReportSinkTest {
+
+    private File report;
+
+    @BeforeMethod
+    public void createReportFile() throws IOException {
+
+        report = File.createTempFile("objectcontract", ".report");
+    }
+
+    @AfterMethod
+    public void deleteReportFile() {
+
+        report.delete();
+    }
+
+    @Test
+    public final void reportPassedChecks() throws IOException {
+
+        final JsonLinesReportSink sink = new JsonLinesReportSink(report);
+        try {
+
+            getBuilder(sink)
+                    .reportPassedChecks()
+                    .setGroup(new Integer(2), new Integer(2))
+                    .getChecker()
+                    .enforceInvariants()
+            ;
+        } finally {
+
+            sink.close();
+        }
+
+        final List<String> lines = read(report);
+
+        // 4 self checks and 4 within group checks per group, 8 checks for every pair of groups
+        assertEquals((4 + 4) * 2 + 8 * 2, lines.size());
+        assertEquals(
+                "{\"check\":\"checkEqualsReflexivity\",\"status\":\"passed\",\"subject\":\"equals is reflexive for [0;0]\"}",
+                lines.get(0)
+        );
+        assertEquals(
+                "{\"check\":\"checkEquals\",\"status\":\"passed\",\"subject\":\"[0;0] equals [0;1]\"}",
+                lines.get(2)
+        );
+    }
+
+    @Test
+    public final void reportOnlyFailures() throws IOException {
+
+        final JsonLinesReportSink sink = new JsonLinesReportSink(report);
+        try {
+
+            getBuilder(sink)
+                    .setGroup(new Integer(1))
+                    .getChecker()
+                    .enforceInvariants()
+            ;
+
+            fail("AssertionError not thrown");
+        } catch (AssertionError ex) {
+
+            // expected
+        } finally {
+
+            sink.close();
+        }
+
+        final List<String> lines = read(report);
+        assertEquals(1, lines.size());
+        assertEquals(
+                "{\"check\":\"checkDoesNotEqual\",\"status\":\"failed\",\"subject\":\"[0;0] does not equal [1;0]\","
+                        + "\"message\":\"Failed asserting that [0;0] does not equal [1;0].\"}",
+                lines.get(0)
+        );
+    }
+
+    @Test
+    public final void reportJUnitXml() throws IOException {
+
+        final JUnitXmlReportSink sink = new JUnitXmlReportSink(report, "Integers");
+        try {
+
+            getBuilder(sink)
+                    .reportPassedChecks()
+                    .setGroup(new Integer(1))
+                    .getChecker()
+                    .enforceInvariants()
+            ;
+
+            fail("AssertionError not thrown");
+        } catch (AssertionError ex) {
+
+            // expected
+        } finally {
+
+            sink.close();
+        }
+
+        final List<String> lines = read(report);
+        assertEquals("<testsuite name=\"Integers\" tests=\"0000000000000000009\" failures=\"0000000000000000001\">", lines.get(1));
+        assertEquals(
+                "  <testcase classname=\"checkEquals\" name=\"[0;0] equals [0;1]\"/>",
+                lines.get(4)
+        );
+        assertEquals(
+                "  <testcase classname=\"checkDoesNotEqual\" name=\"[0;0] does not equal [1;0]\">"
+                        + "<failure message=\"Failed asserting that [0;0] does not equal [1;0].\"/></testcase>",
+                lines.get(10)
+        );
+        assertEquals("</testsuite>", lines.get(11));
+    }
+
+    @Test
+    public final void streamLargeReport() throws IOException {
+
+        final JsonLinesReportSink sink = new JsonLinesReportSink(report);
+        try {
+
+            EqualsHashCodeChecker.getBuilder(new DefaultEqualsHashCodeAsserter())
+                    .reportTo(sink)
+                    .reportPassedChecks()
+                    .setGroups(groups(100))
+                    .getChecker()
+                    .enforceInvariants()
+            ;
+        } finally {
+
+            sink.close();
+        }
+
+        // 2 self checks per instance, 2 between group checks per pair
+        assertEquals(100 * 2 + 100 * 99 * 2, read(report).size());
+    }
+
+    @Test(
+            expectedExceptions = { IllegalStateException.class },
+            expectedExceptionsMessageRegExp = "Passed checks can not be reported without report sink"
+    )
+    public final void reportPassedChecksWithoutSink() {
+
+        EqualsHashCodeChecker.getBuilder(new DefaultEqualsHashCodeAsserter())
+                .reportPassedChecks()
+                .setGroup(new Integer(1))
+                .getChecker()
+        ;
+    }
+
+    private EqualsHashCodeChecker.Builder getBuilder(final ReportSink sink) {
+
+        return EqualsHashCodeChecker.getBuilder(new DefaultEqualsHashCodeAsserter())
+                .reportTo(sink)
+                .setGroup(new Integer(1), new Integer(1))
+        ;
+    }
+
+    private Object[][] groups(final int count) {
+
+        final Object[][] groups = new Object[ count ][];
+        for (int i = 0; i < count; i++) {
+
+            groups[ i ] = new Object[] { new Integer(i) };
+        }
+
+        return groups;
+    }
+
+    private List<String> read(final File file) throws IOException {
+
+        final BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), "UTF-8")
+        );
+
+        try {
+
+            final List<String> lines = new ArrayList<String>();
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+
+                lines.add(line);
+            }
+
+            return lines;
+        } finally {
+
+            reader.close();
+        }
+    }
+}
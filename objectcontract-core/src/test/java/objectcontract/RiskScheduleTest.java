@@ -0,0 +1,221 @@
+package objectcontract;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+import static org.testng.AssertJUnit.fail;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.testng.annotations.Test;
+
+public class RiskScheduleTest {
+
+    private static final int GROUPS = 10;
+
+    /**
+     * Equal to {@link Integer} 3 while Integer 3 is not equal to it.
+     */
+    private static final class AsymmetricThree {
+
+        @Override
+        public boolean equals(final Object o) {
+
+            return o == this || new Integer(3).equals(o);
+        }
+
+        @Override
+        public int hashCode() {
+
+            return 3;
+        }
+    }
+
+    private static final class Irreflexive {
+
+        @Override
+        public boolean equals(final Object o) {
+
+            return false;
+        }
+    }
+
+    @Test
+    public final void verifyCollidingClassesFirst() {
+
+        final CountingAsserter inOrder = new CountingAsserter();
+        final String inOrderMessage = enforce(getBuilder(inOrder, new AsymmetricThree()));
+
+        final CountingAsserter byRisk = new CountingAsserter();
+        final String byRiskMessage = enforce(
+                getBuilder(byRisk, new AsymmetricThree()).scheduleByRisk()
+        );
+
+        assertTrue(inOrderMessage, inOrderMessage.endsWith("[3;0] generates different hashCode than [10;0]."));
+        assertEquals(inOrderMessage, byRiskMessage);
+
+        // self checks and tile [3;10]
+        assertEquals((GROUPS + 1) * 2 + 1, byRisk.count);
+        assertTrue(byRisk.count < inOrder.count);
+    }
+
+    @Test
+    public final void ignoreAllowedCollisions() {
+
+        final CountingAsserter byRisk = new CountingAsserter();
+        final String message = enforce(
+                getBuilder(byRisk, new AsymmetricThree()).allowHashCodeCollision().scheduleByRisk()
+        );
+
+        assertTrue(message, message.endsWith("[10;0] does not equal [3;0]."));
+
+        // colliding tile [3;10] is scored as any other tile with class mismatch
+        assertTrue(byRisk.first, byRisk.first.endsWith("[0;0] does not equal [10;0]."));
+    }
+
+    @Test
+    public final void verifyInstancesThemselvesFirst() {
+
+        final CountingAsserter byRisk = new CountingAsserter();
+        final String message = enforce(
+                getBuilder(byRisk, new Irreflexive()).allowHashCodeCollision().scheduleByRisk()
+        );
+
+        assertTrue(message, message.endsWith("equals is reflexive for [10;0]."));
+        assertEquals(GROUPS * 2 + 1, byRisk.count);
+    }
+
+    @Test
+    public final void verifyClassesFailedBeforeFirst() throws IOException {
+
+        final File history = File.createTempFile("objectcontract", ".history");
+        history.delete();
+
+        try {
+
+            enforce(EqualsHashCodeChecker.getBuilder(new CountingAsserter())
+                    .setGroup(new Long(1), new Long(2))
+                    .scheduleByRisk()
+                    .failureHistory(history)
+            );
+
+            final CountingAsserter asserter = new CountingAsserter();
+            EqualsHashCodeChecker.getBuilder(asserter)
+                    .setGroup(new Integer(1), new Integer(1))
+                    .setGroup(new Integer(2), new Integer(2))
+                    .setGroup("a", new String("a"))
+                    .setGroup(new Long(5), new Long(5))
+                    .scheduleByRisk()
+                    .failureHistory(history)
+                    .getChecker()
+                    .enforceInvariants()
+            ;
+
+            // tile with class mismatch and class failed before comes first
+            assertTrue(asserter.first, asserter.first.endsWith("[0;0] does not equal [3;0]."));
+        } finally {
+
+            history.delete();
+        }
+    }
+
+    @Test
+    public final void keepFailureWhenHistoryCanNotBeWritten() throws IOException {
+
+        final File directory = File.createTempFile("objectcontract", ".history");
+        directory.delete();
+
+        try {
+
+            EqualsHashCodeChecker.getBuilder(new CountingAsserter())
+                    .setGroup(new Long(1), new Long(2))
+                    .scheduleByRisk()
+                    .failureHistory(new File(directory, "history"))
+                    .getChecker()
+                    .enforceInvariants()
+            ;
+        } catch (AssertionError ex) {
+
+            assertEquals(1, ex.getSuppressed().length);
+            assertTrue(ex.getSuppressed()[ 0 ].getMessage(), ex.getSuppressed()[ 0 ].getMessage().startsWith(
+                    "Unable to write failure history"
+            ));
+            return;
+        }
+
+        fail("AssertionError not thrown");
+    }
+
+    private EqualsHashCodeChecker.Builder getBuilder(
+            final EqualsHashCodeAsserter asserter, final Object trap
+    ) {
+
+        final EqualsHashCodeChecker.Builder builder = EqualsHashCodeChecker.getBuilder(asserter);
+
+        for (int i = 0; i < GROUPS; i++) {
+
+            builder.setGroup(new Integer(i));
+        }
+
+        return builder.setGroup(trap);
+    }
+
+    private String enforce(final EqualsHashCodeChecker.Builder builder) {
+
+        try {
+
+            builder.getChecker().enforceInvariants();
+        } catch (AssertionError ex) {
+
+            return ex.getMessage();
+        }
+
+        fail("AssertionError not thrown");
+        return null;
+    }
+
+    private static final class CountingAsserter extends DefaultEqualsHashCodeAsserter {
+
+        private int count = 0;
+        private String first = null;
+
+        private void count() {
+
+            count++;
+        }
+
+        private void count(final String message) {
+
+            if (first == null) first = message;
+            count++;
+        }
+
+        @Override
+        public void checkEqualsReflexivity(Object instance, String message) {
+
+            count();
+            super.checkEqualsReflexivity(instance, message);
+        }
+
+        @Override
+        public void checkEqualsFailsForNull(Object instance, String message) {
+
+            count();
+            super.checkEqualsFailsForNull(instance, message);
+        }
+
+        @Override
+        public void checkEquals(Object lhs, Object rhs, String message) {
+
+            count(message);
+            super.checkEquals(lhs, rhs, message);
+        }
+
+        @Override
+        public void checkDoesNotEqual(Object lhs, Object rhs, String message) {
+
+            count(message);
+            super.checkDoesNotEqual(lhs, rhs, message);
+        }
+    }
+}
@@ -0,0 +1,353 @@
+package objectcontract;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNotSame;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.testng.SkipException;
+import org.testng.annotations.Test;
+
+public class SetGroupFromPrototypeTest {
+
+    @Test
+    public final void copyByCopyConstructor() {
+
+        final Object[] group = getGroup(new CopyConstructor("value"), 3);
+
+        assertEquals(4, group.length);
+        assertNotSame(group[ 0 ], group[ 3 ]);
+        assertEquals(group[ 0 ], group[ 3 ]);
+    }
+
+    @Test
+    public final void copyByFieldConstructor() {
+
+        final Object[] group = getGroup(new Point3D(1, 2, 3), 2);
+
+        assertEquals(3, group.length);
+        assertNotSame(group[ 0 ], group[ 2 ]);
+        assertEquals(group[ 0 ], group[ 2 ]);
+    }
+
+    @Test
+    public final void copyFieldsOfTheSameType() {
+
+        final Object[] group = getGroup(new Name("John", "Doe"), 1);
+
+        assertEquals(2, group.length);
+        assertNotSame(group[ 0 ], group[ 1 ]);
+        assertEquals(group[ 0 ], group[ 1 ]);
+    }
+
+    @Test(
+            expectedExceptions = { AssertionError.class },
+            expectedExceptionsMessageRegExp = ".*\\[0;0\\] equals \\[0;1\\]\\."
+    )
+    public final void leaveEqualityOfCopiesToChecker() {
+
+        EqualsHashCodeChecker.getBuilder(new DefaultEqualsHashCodeAsserter())
+                .setGroupFromPrototype(new IdentityEquality(1), 1)
+                .getChecker()
+                .enforceInvariants()
+        ;
+    }
+
+    @Test
+    public final void copyRecord() throws Exception {
+
+        try {
+
+            Class.class.getMethod("isRecord");
+        } catch (NoSuchMethodException ex) {
+
+            throw new SkipException("Records are not supported");
+        }
+
+        final File dir = File.createTempFile("objectcontract", "record");
+        dir.delete();
+        dir.mkdir();
+
+        try {
+
+            final File source = new File(dir, "Money.java");
+            final Writer writer = new OutputStreamWriter(new FileOutputStream(source), "UTF-8");
+            try {
+
+                writer.write("public record Money(long amount, String currency) {}\n");
+            } finally {
+
+                writer.close();
+            }
+
+            compile(dir, source);
+
+            final URLClassLoader loader = new URLClassLoader(new URL[] { dir.toURI().toURL() });
+            try {
+
+                final Class<?> money = loader.loadClass("Money");
+                final Object prototype = money
+                        .getConstructor(long.class, String.class)
+                        .newInstance(42L, "CZK")
+                ;
+
+                final Object[] group = getGroup(prototype, 2);
+
+                assertEquals(3, group.length);
+                assertNotSame(group[ 0 ], group[ 1 ]);
+                assertEquals("Money[amount=42, currency=CZK]", group[ 1 ].toString());
+            } finally {
+
+                loader.close();
+            }
+        } finally {
+
+            for (final File file: dir.listFiles()) {
+
+                file.delete();
+            }
+
+            dir.delete();
+        }
+    }
+
+    @Test
+    public final void enforceInvariantsOfCopies() {
+
+        EqualsHashCodeChecker.getBuilder(new DefaultEqualsHashCodeAsserter())
+                .setGroupFromPrototype(new Point3D(1, 2, 3), 10)
+                .setGroupFromPrototype(new Point3D(3, 2, 1), 10)
+                .setGroupFromPrototype(new CopyConstructor("value"), 0)
+                .getChecker()
+                .enforceInvariants()
+        ;
+    }
+
+    @Test(
+            expectedExceptions = { IllegalStateException.class },
+            expectedExceptionsMessageRegExp = "Unable to copy objectcontract.SetGroupFromPrototypeTest\\$Uncopyable: "
+                    + "not a record and there is no copy constructor or constructor matching its fields"
+    )
+    public final void rejectUncopyable() {
+
+        getGroup(new Uncopyable("1"), 1);
+    }
+
+    @Test(
+            expectedExceptions = { IllegalStateException.class },
+            expectedExceptionsMessageRegExp = "Copy of objectcontract.SetGroupFromPrototypeTest\\$Rectangle created by "
+                    + ".*Rectangle\\(int,int\\) does not preserve field width"
+    )
+    public final void rejectUnequalCopy() {
+
+        getGroup(new Rectangle(1, 2), 1);
+    }
+
+    @Test(
+            expectedExceptions = { IllegalStateException.class },
+            expectedExceptionsMessageRegExp = "Invalid number of copies -1"
+    )
+    public final void rejectNegativeCopies() {
+
+        getGroup(new Point3D(1, 2, 3), -1);
+    }
+
+    private Object[] getGroup(final Object prototype, final int copies) {
+
+        final EqualsHashCodeChecker.Builder builder = EqualsHashCodeChecker
+                .getBuilder(new DefaultEqualsHashCodeAsserter())
+                .setGroupFromPrototype(prototype, copies)
+        ;
+
+        assertEquals(1, builder.groups.size());
+        assertTrue(builder.groups.get(0).get(0) == prototype);
+
+        return builder.groups.get(0).toArray();
+    }
+
+    private void compile(final File dir, final File source) throws IOException {
+
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        final StandardJavaFileManager files = compiler.getStandardFileManager(null, null, null);
+
+        try {
+
+            final boolean compiled = compiler.getTask(
+                    null, files, null,
+                    Arrays.asList("-d", dir.getPath()),
+                    null, files.getJavaFileObjects(source)
+            ).call();
+
+            assertTrue(compiled);
+        } finally {
+
+            files.close();
+        }
+    }
+
+    private static final class CopyConstructor {
+
+        private final String value;
+
+        private CopyConstructor(final String value) {
+
+            this.value = value;
+        }
+
+        private CopyConstructor(final CopyConstructor other) {
+
+            this.value = other.value;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+
+            return o instanceof CopyConstructor && ((CopyConstructor) o).value.equals(value);
+        }
+
+        @Override
+        public int hashCode() {
+
+            return value.hashCode();
+        }
+    }
+
+    private static class Point2D {
+
+        private final int x;
+        private final int y;
+
+        Point2D(final int x, final int y) {
+
+            this.x = x;
+            this.y = y;
+        }
+    }
+
+    private static final class Point3D extends Point2D {
+
+        private final int z;
+
+        private Point3D(final int x, final int y, final int z) {
+
+            super(x, y);
+            this.z = z;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+
+            if (!(o instanceof Point3D)) return false;
+
+            final Point3D other = (Point3D) o;
+            return ((Point2D) other).x == ((Point2D) this).x
+                    && ((Point2D) other).y == ((Point2D) this).y
+                    && other.z == z
+            ;
+        }
+
+        @Override
+        public int hashCode() {
+
+            return (((Point2D) this).x * 31 + ((Point2D) this).y) * 31 + z;
+        }
+    }
+
+    /**
+     * Constructor parameters match field types in different order.
+     */
+    private static final class Rectangle {
+
+        private final int width;
+        private final int height;
+
+        private Rectangle(final int height, final int width) {
+
+            this.width = width;
+            this.height = height;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+
+            return o instanceof Rectangle && ((Rectangle) o).width == width && ((Rectangle) o).height == height;
+        }
+
+        @Override
+        public int hashCode() {
+
+            return width * 31 + height;
+        }
+    }
+
+    /**
+     * Constructor parameters of the same type named after the fields.
+     */
+    private static final class Name {
+
+        private final String first;
+        private final String last;
+
+        private Name(final String first, final String last) {
+
+            this.first = first;
+            this.last = last;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+
+            return o instanceof Name && ((Name) o).first.equals(first) && ((Name) o).last.equals(last);
+        }
+
+        @Override
+        public int hashCode() {
+
+            return first.hashCode() * 31 + last.hashCode();
+        }
+    }
+
+    private static final class IdentityEquality {
+
+        private final int value;
+
+        private IdentityEquality(final int value) {
+
+            this.value = value;
+        }
+    }
+
+    private static final class Uncopyable {
+
+        private final int value;
+
+        private Uncopyable(final String value) {
+
+            this.value = Integer.parseInt(value);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+
+            return o instanceof Uncopyable && ((Uncopyable) o).value == value;
+        }
+
+        @Override
+        public int hashCode() {
+
+            return value;
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package objectcontract;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+public class ShardTest {
+
+    @Test
+    public final void shardsCoverPairSpaceExactlyOnce() {
+
+        final RecordingAsserter whole = new RecordingAsserter();
+        getBuilder(whole).getChecker().enforceInvariants();
+
+        final List<String> sharded = new ArrayList<String>();
+        for (int shard = 0; shard < 4; shard++) {
+
+            final RecordingAsserter asserter = new RecordingAsserter();
+            getBuilder(asserter).shard(shard, 4).getChecker().enforceInvariants();
+
+            assertFalse(asserter.messages.isEmpty());
+            sharded.addAll(asserter.messages);
+        }
+
+        assertEquals(whole.messages.size(), sharded.size());
+        assertTrue(sharded.containsAll(whole.messages));
+    }
+
+    @Test
+    public final void configureShardUsingSystemProperties() {
+
+        withShardProperties("1", "4", new Runnable() {
+
+            public void run() {
+
+                final EqualsHashCodeAsserter asserter = new RecordingAsserter();
+
+                assertEquals(
+                        getBuilder(asserter).shard(1, 4).getChecker(),
+                        getBuilder(asserter).shardFromSystemProperties().getChecker()
+                );
+                assertEquals(
+                        getBuilder(asserter).getChecker(),
+                        getBuilder(asserter).shard(0, 1).getChecker()
+                );
+            }
+        });
+    }
+
+    @Test(
+            expectedExceptions = { IllegalStateException.class },
+            expectedExceptionsMessageRegExp = "System properties objectcontract.shard.index and objectcontract.shard.count have to be set together"
+    )
+    public final void rejectIncompleteShardProperties() {
+
+        withShardProperties("1", null, new Runnable() {
+
+            public void run() {
+
+                getBuilder(new RecordingAsserter()).shardFromSystemProperties();
+            }
+        });
+    }
+
+    @Test
+    public final void shrinkFailureIgnoringShardProperties() {
+
+        withShardProperties("1", "4", new Runnable() {
+
+            public void run() {
+
+                try {
+
+                    getBuilder(new DefaultEqualsHashCodeAsserter())
+                            .setGroup(new Integer(6), new Long(6))
+                            .shrinkFailures()
+                            .getChecker()
+                            .enforceInvariants()
+                    ;
+                } catch (AssertionError ex) {
+
+                    assertTrue(ex.getMessage(), ex.getMessage().contains(
+                            "Reproduces with 2 instances: Failed asserting that [0;0] equals [0;1]."
+                    ));
+                    return;
+                }
+
+                throw new AssertionError("AssertionError not thrown");
+            }
+        });
+    }
+
+    @Test
+    public final void floodingSearchIgnoringShardProperties() {
+
+        withShardProperties("1", "4", new Runnable() {
+
+            public void run() {
+
+                final RecordingAsserter asserter = new RecordingAsserter();
+
+                final HashFloodingSearch.Result result = new HashFloodingSearch(
+                        asserter, new HashFloodingSearchTest.StringSpace()
+                ).seed(42).search(2);
+
+                assertTrue(result.toString(), result.isComplete());
+                // reflexivity of both instances and the pair in both directions
+                assertEquals(asserter.messages.toString(), 4, asserter.messages.size());
+            }
+        });
+    }
+
+    @Test
+    public final void mergeReports() throws IOException {
+
+        final ShardReport[] reports = new ShardReport[ 3 ];
+        for (int shard = 0; shard < reports.length; shard++) {
+
+            final File file = File.createTempFile("objectcontract", ".shard");
+            try {
+
+                getBuilder(new RecordingAsserter())
+                        .shard(shard, reports.length)
+                        .shardReport(file)
+                        .getChecker()
+                        .enforceInvariants()
+                ;
+
+                reports[ shard ] = ShardReport.read(file);
+            } finally {
+
+                file.delete();
+            }
+        }
+
+        final ShardReport verdict = ShardReport.merge(reports);
+        assertTrue(verdict.toString(), verdict.isPassed());
+        assertEquals(25, verdict.getVerifiedTiles());
+
+        final ShardReport incomplete = ShardReport.merge(reports[ 0 ], reports[ 2 ]);
+        assertFalse(incomplete.isPassed());
+        assertEquals("Shard 1 of 3 did not report", incomplete.getFailures().get(0));
+    }
+
+    @Test
+    public final void reportFailure() throws IOException {
+
+        final File file = File.createTempFile("objectcontract", ".shard");
+        try {
+
+            EqualsHashCodeChecker.getBuilder(new RecordingAsserter())
+                    .setGroup(new Integer(1), new Integer(2))
+                    .shardReport(file)
+                    .getChecker()
+                    .enforceInvariants()
+            ;
+        } catch (AssertionError ex) {
+
+            final ShardReport report = ShardReport.read(file);
+            assertFalse(report.isPassed());
+            assertEquals(ex.getMessage(), report.getFailures().get(0));
+            return;
+        } finally {
+
+            file.delete();
+        }
+
+        throw new AssertionError("AssertionError not thrown");
+    }
+
+    @Test(
+            expectedExceptions = { IllegalStateException.class },
+            expectedExceptionsMessageRegExp = "Invalid shard index 2 of 2 shards"
+    )
+    public final void invalidShard() {
+
+        getBuilder(new RecordingAsserter()).shard(2, 2);
+    }
+
+    private void withShardProperties(final String index, final String count, final Runnable test) {
+
+        if (index != null) System.setProperty(EqualsHashCodeChecker.SHARD_INDEX_PROPERTY, index);
+        if (count != null) System.setProperty(EqualsHashCodeChecker.SHARD_COUNT_PROPERTY, count);
+
+        try {
+
+            test.run();
+        } finally {
+
+            System.clearProperty(EqualsHashCodeChecker.SHARD_INDEX_PROPERTY);
+            System.clearProperty(EqualsHashCodeChecker.SHARD_COUNT_PROPERTY);
+        }
+    }
+
+    private EqualsHashCodeChecker.Builder getBuilder(final EqualsHashCodeAsserter asserter) {
+
+        return EqualsHashCodeChecker.getBuilder(asserter)
+                .setGroup(new Integer(1))
+                .setGroup(new Integer(2), new Integer(2))
+                .setGroup(new Integer(3), new Integer(3), new Integer(3))
+                .setGroup(new Integer(4))
+                .setGroup(new Integer(5), new Integer(5))
+        ;
+    }
+
+    private static final class RecordingAsserter extends DefaultEqualsHashCodeAsserter {
+
+        private final List<String> messages = new ArrayList<String>();
+
+        @Override
+        public void checkEquals(Object lhs, Object rhs, String message) {
+
+            messages.add(message);
+            super.checkEquals(lhs, rhs, message);
+        }
+
+        @Override
+        public void checkEqualsReflexivity(Object instance, String message) {
+
+            messages.add(message);
+            super.checkEqualsReflexivity(instance, message);
+        }
+
+        @Override
+        public void checkDoesNotEqual(Object lhs, Object rhs, String message) {
+
+            messages.add(message);
+            super.checkDoesNotEqual(lhs, rhs, message);
+        }
+    }
+}
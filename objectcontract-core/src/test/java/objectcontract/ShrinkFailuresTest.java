@@ -0,0 +1,194 @@
+package objectcontract;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertSame;
+import static org.testng.AssertJUnit.assertTrue;
+import static org.testng.AssertJUnit.fail;
+
+import org.testng.annotations.Test;
+
+public class ShrinkFailuresTest {
+
+    private static final String SEPARATOR = System.getProperty("line.separator");
+
+    @Test
+    public final void shrinkToSingleInstance() {
+
+        final AssertionError error = enforce(getBuilder()
+                .setGroup(new NotReflexive())
+        );
+
+        final String message = error.getMessage();
+        assertTrue(message, message.startsWith(
+                "Failed asserting that equals is reflexive for [50;0]." + SEPARATOR
+                + "Reproduces with 1 instance: Failed asserting that equals is reflexive for [0;0]." + SEPARATOR
+        ));
+        assertTrue(message, message.contains(
+                "        .setGroup(g50i0)" + SEPARATOR + "        .getChecker()"
+        ));
+        assertTrue(message, message.endsWith(
+                "where" + SEPARATOR + "    g50i0 = " + NotReflexive.class.getName() + " not reflexive"
+        ));
+    }
+
+    @Test
+    public final void reproduceTheSameCheck() {
+
+        final AssertionError error = enforce(getBuilder()
+                .setGroup(new Integer(50), new Integer(50), new NotReflexive())
+        );
+
+        // NotReflexive alone fails different check
+        final String message = error.getMessage();
+        assertTrue(message, message.startsWith(
+                "Failed asserting that [50;0] equals [50;2]." + SEPARATOR
+                + "Reproduces with 2 instances: Failed asserting that [0;0] equals [0;1]." + SEPARATOR
+        ));
+        assertTrue(message, message.contains("        .setGroup(g50i0, g50i2)" + SEPARATOR));
+    }
+
+    @Test
+    public final void skipCandidatesThrowingExceptions() {
+
+        final AssertionError error = enforce(getBuilder()
+                .setGroup(new Integer(50), new FailsForNull())
+        );
+
+        final String message = error.getMessage();
+        assertTrue(message, message.startsWith(
+                "Failed asserting that [50;0] equals [50;1]." + SEPARATOR
+                + "Reproduces with 2 instances: Failed asserting that [0;0] equals [0;1]." + SEPARATOR
+        ));
+    }
+
+    @Test
+    public final void shrinkToPairWithinGroup() {
+
+        final AssertionError error = enforce(getBuilder()
+                .setGroup(new Integer(50), new Long(50), new Integer(50))
+        );
+
+        final String message = error.getMessage();
+        assertTrue(message, message.contains(
+                "Reproduces with 2 instances: Failed asserting that [0;0] equals [0;1]." + SEPARATOR
+        ));
+        assertTrue(message, message.contains("        .setGroup(g50i0, g50i1)" + SEPARATOR));
+        assertTrue(message, message.contains("    g50i0 = java.lang.Integer 50" + SEPARATOR));
+        assertTrue(message, message.endsWith("    g50i1 = java.lang.Long 50"));
+    }
+
+    @Test
+    public final void shrinkToPairBetweenGroups() {
+
+        final AssertionError error = enforce(getBuilder()
+                .allowHashCodeCollision()
+                .setGroup(new Integer(7), new Integer(7))
+        );
+
+        final String message = error.getMessage();
+        assertTrue(message, message.startsWith(
+                "Failed asserting that [7;0] does not equal [50;0]." + SEPARATOR
+        ));
+        assertTrue(message, message.contains(
+                "EqualsHashCodeChecker.getBuilder(asserter)" + SEPARATOR
+                + "        .allowHashCodeCollision()" + SEPARATOR
+                + "        .setGroup(g7i0)" + SEPARATOR
+                + "        .setGroup(g50i0)" + SEPARATOR
+        ));
+    }
+
+    @Test
+    public final void failureNotShrunkByDefault() {
+
+        final EqualsHashCodeChecker.Builder builder = EqualsHashCodeChecker
+                .getBuilder(new DefaultEqualsHashCodeAsserter())
+                .setGroup(new Integer(1), new Long(1))
+        ;
+
+        final AssertionError error = enforce(builder);
+
+        assertEquals("Failed asserting that [0;0] equals [0;1].", error.getMessage());
+    }
+
+    @Test
+    public final void keepOriginalFailureAsCause() {
+
+        final AssertionError error = enforce(getBuilder()
+                .setGroup(new Integer(50), new Long(50))
+        );
+
+        final Throwable cause = error.getCause();
+        assertSame(AssertionError.class, cause.getClass());
+        assertEquals("Failed asserting that [50;0] equals [50;1].", cause.getMessage());
+    }
+
+    private EqualsHashCodeChecker.Builder getBuilder() {
+
+        final EqualsHashCodeChecker.Builder builder = EqualsHashCodeChecker
+                .getBuilder(new DefaultEqualsHashCodeAsserter())
+                .shrinkFailures()
+        ;
+
+        for (int i = 0; i < 50; i++) {
+
+            builder.setGroup(new Integer(i), new Integer(i));
+        }
+
+        return builder;
+    }
+
+    private AssertionError enforce(final EqualsHashCodeChecker.Builder builder) {
+
+        try {
+
+            builder.getChecker().enforceInvariants();
+        } catch (AssertionError ex) {
+
+            return ex;
+        }
+
+        fail("AssertionError not thrown");
+        return null;
+    }
+
+    /**
+     * Throws instead of returning false for null.
+     */
+    private static final class FailsForNull {
+
+        @Override
+        public boolean equals(final Object o) {
+
+            if (o == null) throw new NullPointerException();
+
+            return o == this;
+        }
+
+        @Override
+        public int hashCode() {
+
+            return 50;
+        }
+    }
+
+    private static final class NotReflexive {
+
+        @Override
+        public boolean equals(final Object o) {
+
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+
+            return -1;
+        }
+
+        @Override
+        public String toString() {
+
+            return "not reflexive";
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package objectcontract;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNotSame;
+import static org.testng.AssertJUnit.assertSame;
+import static org.testng.AssertJUnit.fail;
+
+import org.testng.annotations.Test;
+
+public class SpecializeCallSitesTest {
+
+    @Test
+    public final void defineCallSitesPerClassPair() {
+
+        final CallSiteSpecializer specializer = new CallSiteSpecializer();
+
+        final CallSiteSpecializer.Checks integers = specializer.getChecks(Integer.class, Integer.class);
+        final CallSiteSpecializer.Checks mixed = specializer.getChecks(Integer.class, Long.class);
+        final CallSiteSpecializer.Checks reversed = specializer.getChecks(Long.class, Integer.class);
+
+        assertSame(integers, specializer.getChecks(Integer.class, Integer.class));
+
+        assertNotSame(integers.getClass(), mixed.getClass());
+        assertNotSame(mixed.getClass(), reversed.getClass());
+        assertFalse(integers.getClass() == SpecializedChecks.class);
+        assertEquals(SpecializedChecks.class.getName(), integers.getClass().getName());
+    }
+
+    @Test
+    public final void invokeAsserterForViolationsOnly() {
+
+        final CountingAsserter asserter = new CountingAsserter();
+
+        getBuilder(asserter).getChecker().enforceInvariants();
+
+        assertEquals(0, asserter.count);
+    }
+
+    @Test
+    public final void reportViolationThroughAsserter() {
+
+        final CountingAsserter asserter = new CountingAsserter();
+
+        try {
+
+            getBuilder(asserter)
+                    .setGroup(new Integer(7), new Integer(8))
+                    .getChecker()
+                    .enforceInvariants()
+            ;
+        } catch (AssertionError ex) {
+
+            assertEquals("Failed asserting that [4;0] equals [4;1].", ex.getMessage());
+            // the instance provided to the builder
+            assertEquals(1, asserter.count);
+            return;
+        }
+
+        fail("AssertionError not thrown");
+    }
+
+    @Test(
+            expectedExceptions = { AssertionError.class },
+            expectedExceptionsMessageRegExp = "Failed asserting that \\[0;0\\] generates different hashCode than \\[1;0\\]\\."
+    )
+    public final void reportCollisionBetweenClasses() {
+
+        EqualsHashCodeChecker.getBuilder(new DefaultEqualsHashCodeAsserter())
+                .setGroup(new Integer(1))
+                .setGroup(new Long(1))
+                .specializeCallSites()
+                .getChecker()
+                .enforceInvariants()
+        ;
+    }
+
+    @Test(
+            expectedExceptions = { IllegalStateException.class },
+            expectedExceptionsMessageRegExp = "Passed checks can not be reported when call sites are specialized"
+    )
+    public final void rejectReportingPassedChecks() {
+
+        getBuilder(new CountingAsserter())
+                .reportTo(new ReportSink() {
+
+                    public void passed(final String check, final String subject) {
+
+                    }
+
+                    public void failed(final String check, final String subject, final String message) {
+
+                    }
+
+                    public void close() {
+
+                    }
+                })
+                .reportPassedChecks()
+                .getChecker()
+        ;
+    }
+
+    private EqualsHashCodeChecker.Builder getBuilder(final EqualsHashCodeAsserter asserter) {
+
+        return EqualsHashCodeChecker.getBuilder(asserter)
+                .setGroup(new Integer(1), new Integer(1))
+                .setGroup("1", new String("1"), new String("1"))
+                .setGroup(new Long(2), new Long(2))
+                .setGroup(new Integer(3))
+                .allowHashCodeCollision()
+                .specializeCallSites()
+        ;
+    }
+
+    private static final class CountingAsserter extends DefaultEqualsHashCodeAsserter {
+
+        private int count = 0;
+
+        @Override
+        public void checkEqualsReflexivity(Object instance, String message) {
+
+            count++;
+            super.checkEqualsReflexivity(instance, message);
+        }
+
+        @Override
+        public void checkEqualsFailsForNull(Object instance, String message) {
+
+            count++;
+            super.checkEqualsFailsForNull(instance, message);
+        }
+
+        @Override
+        public void checkEquals(Object lhs, Object rhs, String message) {
+
+            count++;
+            super.checkEquals(lhs, rhs, message);
+        }
+
+        @Override
+        public void checkHashCodeEquals(Object lhs, Object rhs, String message) {
+
+            count++;
+            super.checkHashCodeEquals(lhs, rhs, message);
+        }
+
+        @Override
+        public void checkDoesNotEqual(Object lhs, Object rhs, String message) {
+
+            count++;
+            super.checkDoesNotEqual(lhs, rhs, message);
+        }
+
+        @Override
+        public void checkHashCodeDoesNotEqual(Object lhs, Object rhs, String message) {
+
+            count++;
+            super.checkHashCodeDoesNotEqual(lhs, rhs, message);
+        }
+    }
+}
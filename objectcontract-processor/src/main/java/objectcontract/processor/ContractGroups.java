@@ -0,0 +1,55 @@
+package objectcontract.processor;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declare factory method of equality groups to generate contract test for.
+ *
+ * <p>Annotated method has to be static, not private, without parameters and
+ * return array of equality groups of reference type. For every class
+ * declaring annotated methods, {@link ContractGroupsProcessor} generates class
+ * <code>&lt;ClassName&gt;ContractTest</code> in the same package with a
+ * test method verifying groups of every factory method.</p>
+ *
+ * <p>Generated test is compiled together with the annotated class. Declare
+ * the factory methods in test sources, annotating a class in main sources
+ * puts the generated test, and its references to JUnit or TestNG and
+ * objectcontract, into the main output.</p>
+ *
+ * <pre>
+ * &#64;ContractGroups
+ * static Object[][] money() {
+ *     return new Object[][] {
+ *         { new Money(1, "EUR"), new Money(1, "EUR") },
+ *         { new Money(1, "USD"), new Money(1, "USD") }
+ *     };
+ * }
+ * </pre>
+ *
+ * @author Oliver Gondža (ogondza@gmail.com)
+ */
+@Documented
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.METHOD)
+public @interface ContractGroups {
+
+    /**
+     * Test framework to generate the test for.
+     */
+    enum Framework { JUNIT, TESTNG }
+
+    /**
+     * @return Test framework to generate the test for.
+     */
+    Framework framework() default Framework.JUNIT;
+
+    /**
+     * @return Allow instances from different equality groups to have
+     * conflicting hash code.
+     */
+    boolean allowHashCodeCollision() default false;
+}
@@ -0,0 +1,230 @@
+package objectcontract.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+
+/**
+ * Generate contract tests for {@link ContractGroups} factory methods.
+ *
+ * <p>Generated tests invoke the factory methods and the checker directly so
+ * there is no reflection nor classpath scanning involved when they run.</p>
+ *
+ * @author Oliver Gondža (ogondza@gmail.com)
+ */
+@SupportedAnnotationTypes("objectcontract.processor.ContractGroups")
+public final class ContractGroupsProcessor extends AbstractProcessor {
+
+    private static final String SUFFIX = "ContractTest";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(
+            final Set<? extends TypeElement> annotations,
+            final RoundEnvironment roundEnv
+    ) {
+
+        final Map<TypeElement, List<ExecutableElement>> factories =
+                new LinkedHashMap<TypeElement, List<ExecutableElement>>()
+        ;
+
+        for (final Element element: roundEnv.getElementsAnnotatedWith(ContractGroups.class)) {
+
+            final ExecutableElement method = (ExecutableElement) element;
+            if (!isValid(method)) continue;
+
+            final TypeElement type = (TypeElement) method.getEnclosingElement();
+            List<ExecutableElement> methods = factories.get(type);
+            if (methods == null) {
+
+                methods = new ArrayList<ExecutableElement>();
+                factories.put(type, methods);
+            }
+
+            methods.add(method);
+        }
+
+        for (final Map.Entry<TypeElement, List<ExecutableElement>> entry: factories.entrySet()) {
+
+            generate(entry.getKey(), entry.getValue());
+        }
+
+        return true;
+    }
+
+    private boolean isValid(final ExecutableElement method) {
+
+        final Set<Modifier> modifiers = method.getModifiers();
+
+        if (!modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.PRIVATE)) {
+
+            return error(method, "Contract groups factory has to be static and not private");
+        }
+
+        if (!method.getParameters().isEmpty()) {
+
+            return error(method, "Contract groups factory can not have parameters");
+        }
+
+        final TypeMirror type = method.getReturnType();
+        final boolean isGroups = type.getKind() == TypeKind.ARRAY
+                && ((ArrayType) type).getComponentType().getKind() == TypeKind.ARRAY
+        ;
+
+        if (!isGroups) {
+
+            return error(method, "Contract groups factory has to return array of groups");
+        }
+
+        final TypeMirror group = ((ArrayType) type).getComponentType();
+        if (((ArrayType) group).getComponentType().getKind().isPrimitive()) {
+
+            return error(method, "Contract groups factory has to return groups of references, not " + type);
+        }
+
+        final Element enclosing = method.getEnclosingElement();
+        if (enclosing.getEnclosingElement().getKind().isClass()
+                || enclosing.getEnclosingElement().getKind().isInterface()
+        ) {
+
+            return error(method, "Contract groups factory has to be declared in top level class");
+        }
+
+        return true;
+    }
+
+    private boolean error(final Element element, final String message) {
+
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+        return false;
+    }
+
+    private void generate(final TypeElement type, final List<ExecutableElement> methods) {
+
+        final ContractGroups.Framework framework = methods.get(0)
+                .getAnnotation(ContractGroups.class).framework()
+        ;
+
+        for (final ExecutableElement method: methods) {
+
+            if (method.getAnnotation(ContractGroups.class).framework() != framework) {
+
+                error(method, "Contract groups of a class have to use the same framework");
+                return;
+            }
+        }
+
+        final PackageElement pkg = processingEnv.getElementUtils().getPackageOf(type);
+        final String packageName = pkg.isUnnamed() ? "" : pkg.getQualifiedName().toString();
+        final String testName = type.getSimpleName() + SUFFIX;
+        final String qualifiedName = packageName.length() == 0
+                ? testName
+                : packageName + "." + testName
+        ;
+
+        try {
+
+            final Writer writer = processingEnv.getFiler()
+                    .createSourceFile(qualifiedName, type)
+                    .openWriter()
+            ;
+
+            try {
+
+                writer.write(getSource(packageName, testName, type, methods, framework));
+            } finally {
+
+                writer.close();
+            }
+        } catch (IOException ex) {
+
+            error(type, "Unable to generate " + qualifiedName + ": " + ex.getMessage());
+        }
+    }
+
+    private String getSource(
+            final String packageName,
+            final String testName,
+            final TypeElement type,
+            final List<ExecutableElement> methods,
+            final ContractGroups.Framework framework
+    ) {
+
+        final String test = framework == ContractGroups.Framework.JUNIT
+                ? "org.junit.Test"
+                : "org.testng.annotations.Test"
+        ;
+
+        final String asserter = framework == ContractGroups.Framework.JUNIT
+                ? "objectcontract.junit.JUnitEqualsHashCodeAsserter"
+                : "objectcontract.testng.TestNGEqualsHashCodeAsserter"
+        ;
+
+        final StringBuilder source = new StringBuilder();
+
+        if (packageName.length() != 0) {
+
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+
+        source.append("import objectcontract.EqualsHashCodeChecker;\n\n");
+        source.append("/**\n");
+        source.append(" * Contract test of {@link ").append(type.getSimpleName()).append("}.\n");
+        source.append(" *\n");
+        source.append(" * <p>Generated by ").append(getClass().getName()).append(".</p>\n");
+        source.append(" */\n");
+        source.append("public class ").append(testName).append(" {\n");
+
+        for (final ExecutableElement method: methods) {
+
+            final boolean allowHashCodeCollision = method
+                    .getAnnotation(ContractGroups.class).allowHashCodeCollision()
+            ;
+
+            source.append("\n");
+            source.append("    @").append(test).append("\n");
+            source.append("    public void ").append(method.getSimpleName()).append("() {\n\n");
+            source.append("        EqualsHashCodeChecker.getBuilder(new ").append(asserter).append("())\n");
+            source.append("                .setGroups(").append(type.getSimpleName())
+                    .append('.').append(method.getSimpleName()).append("())\n")
+            ;
+
+            if (allowHashCodeCollision) {
+
+                source.append("                .allowHashCodeCollision()\n");
+            }
+
+            source.append("                .getChecker()\n");
+            source.append("                .enforceInvariants()\n");
+            source.append("        ;\n");
+            source.append("    }\n");
+        }
+
+        source.append("}\n");
+
+        return source.toString();
+    }
+}
@@ -0,0 +1,235 @@
+package objectcontract.processor;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+import java.util.Collections;
+
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Result;
+import org.testng.TestListenerAdapter;
+import org.testng.TestNG;
+
+public class ContractGroupsProcessorTest {
+
+    private File dir;
+    private final StringWriter diagnostics = new StringWriter();
+
+    @Before
+    public void createDirectory() throws IOException {
+
+        dir = File.createTempFile("objectcontract", "processor");
+        dir.delete();
+        dir.mkdir();
+    }
+
+    @After
+    public void deleteDirectory() {
+
+        delete(dir);
+    }
+
+    @Test
+    public void generateContractTest() throws Exception {
+
+        final boolean compiled = compile("fixtures/Money.java",
+                "package fixtures;",
+                "import objectcontract.processor.ContractGroups;",
+                "public class Money {",
+                "    final int amount;",
+                "    Money(int amount) { this.amount = amount; }",
+                "    @Override public boolean equals(Object o) {",
+                "        return o instanceof Money && ((Money) o).amount == amount;",
+                "    }",
+                "    @Override public int hashCode() { return amount; }",
+                "    @ContractGroups static Object[][] money() {",
+                "        return new Object[][] {",
+                "            { new Money(1), new Money(1) },",
+                "            { new Money(2), new Money(2) }",
+                "        };",
+                "    }",
+                "    @ContractGroups(allowHashCodeCollision = true) static Money[][] moreMoney() {",
+                "        return new Money[][] { { new Money(3) } };",
+                "    }",
+                "}"
+        );
+
+        assertTrue(diagnostics.toString(), compiled);
+        assertTrue(new File(dir, "fixtures/MoneyContractTest.class").exists());
+
+        final Result result = run("fixtures.MoneyContractTest");
+        assertEquals(2, result.getRunCount());
+        assertTrue(result.getFailures().toString(), result.wasSuccessful());
+    }
+
+    @Test
+    public void generatedTestFails() throws Exception {
+
+        final boolean compiled = compile("Broken.java",
+                "import objectcontract.processor.ContractGroups;",
+                "public class Broken {",
+                "    @ContractGroups static Object[][] groups() {",
+                "        return new Object[][] { { new Object(), new Object() } };",
+                "    }",
+                "}"
+        );
+
+        assertTrue(diagnostics.toString(), compiled);
+
+        final Result result = run("BrokenContractTest");
+        assertEquals(1, result.getFailureCount());
+        assertTrue(result.getFailures().get(0).getMessage().contains("[0;0] equals [0;1]"));
+    }
+
+    @Test
+    public void rejectInstanceMethod() throws Exception {
+
+        final boolean compiled = compile("Invalid.java",
+                "import objectcontract.processor.ContractGroups;",
+                "public class Invalid {",
+                "    @ContractGroups Object[][] groups() { return null; }",
+                "}"
+        );
+
+        assertFalse(compiled);
+        assertTrue(
+                diagnostics.toString(),
+                diagnostics.toString().contains("has to be static and not private")
+        );
+    }
+
+    @Test
+    public void generateTestNGContractTest() throws Exception {
+
+        final boolean compiled = compile("fixtures/Name.java",
+                "package fixtures;",
+                "import objectcontract.processor.ContractGroups;",
+                "import objectcontract.processor.ContractGroups.Framework;",
+                "public class Name {",
+                "    @ContractGroups(framework = Framework.TESTNG) static String[][] names() {",
+                "        return new String[][] { { \"a\", new String(\"a\") }, { \"b\" } };",
+                "    }",
+                "    @ContractGroups(framework = Framework.TESTNG) static Object[][] broken() {",
+                "        return new Object[][] { { new Object(), new Object() } };",
+                "    }",
+                "}"
+        );
+
+        assertTrue(diagnostics.toString(), compiled);
+
+        final ClassLoader loader = new URLClassLoader(
+                new URL[] { dir.toURI().toURL() }, getClass().getClassLoader()
+        );
+
+        final TestListenerAdapter listener = new TestListenerAdapter();
+        final TestNG testng = new TestNG();
+        testng.setUseDefaultListeners(false);
+        testng.setVerbose(0);
+        testng.setTestClasses(new Class[] { loader.loadClass("fixtures.NameContractTest") });
+        testng.addListener(listener);
+        testng.run();
+
+        assertEquals(1, listener.getPassedTests().size());
+        assertEquals("names", listener.getPassedTests().get(0).getName());
+        assertEquals(1, listener.getFailedTests().size());
+        assertTrue(listener.getFailedTests().get(0).getThrowable().getMessage().contains("[0;0] equals [0;1]"));
+    }
+
+    @Test
+    public void rejectPrimitiveGroups() throws Exception {
+
+        final boolean compiled = compile("Primitive.java",
+                "import objectcontract.processor.ContractGroups;",
+                "public class Primitive {",
+                "    @ContractGroups static int[][] groups() { return new int[][] { { 1 } }; }",
+                "}"
+        );
+
+        assertFalse(compiled);
+        assertTrue(
+                diagnostics.toString(),
+                diagnostics.toString().contains("has to return groups of references, not int[][]")
+        );
+    }
+
+    private boolean compile(final String path, final String... lines) throws IOException {
+
+        final File source = new File(dir, path);
+        source.getParentFile().mkdirs();
+
+        final Writer writer = new OutputStreamWriter(new FileOutputStream(source), "UTF-8");
+        try {
+
+            for (final String line: lines) {
+
+                writer.write(line);
+                writer.write('\n');
+            }
+        } finally {
+
+            writer.close();
+        }
+
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        final StandardJavaFileManager files = compiler.getStandardFileManager(null, null, null);
+
+        try {
+
+            final Iterable<? extends JavaFileObject> units = files.getJavaFileObjects(source);
+            final JavaCompiler.CompilationTask task = compiler.getTask(
+                    diagnostics, files, null,
+                    Arrays.asList(
+                            "-d", dir.getPath(),
+                            "-s", dir.getPath(),
+                            "-classpath", System.getProperty("java.class.path")
+                    ),
+                    null, units
+            );
+
+            task.setProcessors(Collections.singletonList(new ContractGroupsProcessor()));
+            return task.call();
+        } finally {
+
+            files.close();
+        }
+    }
+
+    private Result run(final String testClass) throws Exception {
+
+        final ClassLoader loader = new URLClassLoader(
+                new URL[] { dir.toURI().toURL() }, getClass().getClassLoader()
+        );
+
+        return new JUnitCore().run(loader.loadClass(testClass));
+    }
+
+    private void delete(final File file) {
+
+        final File[] children = file.listFiles();
+        if (children != null) {
+
+            for (final File child: children) {
+
+                delete(child);
+            }
+        }
+
+        file.delete();
+    }
+}